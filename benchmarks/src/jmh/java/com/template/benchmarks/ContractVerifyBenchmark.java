@@ -0,0 +1,81 @@
+package com.template.benchmarks;
+
+import com.template.contracts.WillContract;
+import com.template.states.WillStatus;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.transactions.SignedTransaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WillContract.verify for each command, for a single will and for a batch of wills in one transaction, compared
+ * against the BaselineWillContract it replaced.
+ *
+ * The baseline only supports single-will transactions, so baselineVerify always verifies one will and is compared
+ * with verify at wills=1. The baseline generated wills straight from a request, so its GenerateWill transaction skips
+ * the beneficiary validation WillContract requires.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContractVerifyBenchmark {
+
+    @Param({"RequestWill", "BeneficiaryValidationWill", "GenerateWill"})
+    public String command;
+
+    @Param({"1", "100"})
+    public int wills;
+
+    // Will types from the front, middle and back of the baseline's equalsIgnoreCase chain, in mixed case
+    @Param({"Living Will", "pour over WILL", "Deathbed Will"})
+    public String willType;
+
+    private final WillContract contract = new WillContract();
+    private final BaselineWillContract baselineContract = new BaselineWillContract();
+    private WillLedgerFixture fixture;
+    private LedgerTransaction ledgerTransaction;
+    private LedgerTransaction baselineTransaction;
+
+    @Setup
+    public void setUp() {
+        fixture = new WillLedgerFixture();
+        SignedTransaction issuance = fixture.issue(wills, willType, 1024);
+        SignedTransaction singleIssuance = wills == 1 ? issuance : fixture.issue(1, willType, 1024);
+        switch (command) {
+            case "RequestWill":
+                ledgerTransaction = fixture.requestBuilder(wills, willType, 1024).toLedgerTransaction(fixture.services);
+                baselineTransaction = fixture.requestBuilder(1, willType, 1024).toLedgerTransaction(fixture.services);
+                break;
+            case "BeneficiaryValidationWill":
+                ledgerTransaction = fixture.transitionBuilder(issuance, new WillContract.BeneficiaryValidationWill(), WillStatus.BENEFICIARY_VALIDATED)
+                        .toLedgerTransaction(fixture.services);
+                baselineTransaction = fixture.transitionBuilder(singleIssuance, new WillContract.BeneficiaryValidationWill(), WillStatus.BENEFICIARY_VALIDATED)
+                        .toLedgerTransaction(fixture.services);
+                break;
+            case "GenerateWill":
+                ledgerTransaction = fixture.transitionBuilder(fixture.validate(issuance), new WillContract.GenerateWill(), WillStatus.WILL_GENERATED)
+                        .toLedgerTransaction(fixture.services);
+                baselineTransaction = fixture.transitionBuilder(singleIssuance, new WillContract.GenerateWill(), WillStatus.WILL_GENERATED)
+                        .toLedgerTransaction(fixture.services);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void verify() {
+        contract.verify(ledgerTransaction);
+    }
+
+    @Benchmark
+    public void baselineVerify() {
+        baselineContract.verify(baselineTransaction);
+    }
+}
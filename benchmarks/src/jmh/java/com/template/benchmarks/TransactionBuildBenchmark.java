@@ -0,0 +1,56 @@
+package com.template.benchmarks;
+
+import com.template.contracts.WillContract;
+import com.template.states.WillStatus;
+import net.corda.core.transactions.SignedTransaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and signing the transaction of each will flow, i.e. the work a flow does between the vault lookup and
+ * FinalityFlow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TransactionBuildBenchmark {
+
+    @Param({"1024"})
+    public int detailsSize;
+
+    private WillLedgerFixture fixture;
+    private SignedTransaction issuance;
+    private SignedTransaction validation;
+
+    @Setup
+    public void setUp() {
+        fixture = new WillLedgerFixture();
+        issuance = fixture.issue(1, detailsSize);
+        validation = fixture.validate(issuance);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public SignedTransaction requestWill() {
+        return fixture.services.signInitialTransaction(fixture.requestBuilder(1, detailsSize), fixture.owner.getPublicKey());
+    }
+
+    @Benchmark
+    public SignedTransaction beneficiaryValidationWill() {
+        return fixture.services.signInitialTransaction(
+                fixture.transitionBuilder(issuance, new WillContract.BeneficiaryValidationWill(), WillStatus.BENEFICIARY_VALIDATED),
+                fixture.verifier.getPublicKey());
+    }
+
+    @Benchmark
+    public SignedTransaction generateWill() {
+        return fixture.services.signInitialTransaction(
+                fixture.transitionBuilder(validation, new WillContract.GenerateWill(), WillStatus.WILL_GENERATED),
+                fixture.verifier.getPublicKey());
+    }
+}
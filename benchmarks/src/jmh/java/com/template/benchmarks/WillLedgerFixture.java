@@ -0,0 +1,115 @@
+package com.template.benchmarks;
+
+import com.template.contracts.WillContract;
+import com.template.flows.WillDetailsAttachments;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.contracts.CommandData;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.testing.core.TestIdentity;
+import net.corda.testing.internal.GlobalSerializationEnvironment;
+import net.corda.testing.node.MockServices;
+
+import java.util.Collections;
+
+import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
+import static net.corda.testing.internal.InternalSerializationTestHelpersKt.setGlobalSerialization;
+
+/**
+ * The parties, mock node services and will transactions the benchmarks run against. The transactions have the same
+ * shape as the ones built by RequestWillFlow, BeneficiaryValidationWillFlow and GenerateWillFlow.
+ */
+class WillLedgerFixture implements AutoCloseable {
+    final TestIdentity owner = new TestIdentity(new CordaX500Name("WillOwner", "Charlotte", "US"));
+    final TestIdentity verifier = new TestIdentity(new CordaX500Name("WillCertifier", "New York", "US"));
+    final Party notary = new TestIdentity(new CordaX500Name("Notary", "Minneapolis", "US")).getParty();
+
+    private final GlobalSerializationEnvironment serializationEnvironment;
+    final MockServices services;
+
+    WillLedgerFixture() {
+        serializationEnvironment = setGlobalSerialization(true);
+        services = new MockServices(Collections.singletonList("com.template.contracts"), owner, verifier.getKeyPair());
+    }
+
+    // Will text of the given size, so states carry realistic payloads
+    static String willDetails(int size) {
+        StringBuilder details = new StringBuilder(size);
+        String clause = "I give, devise and bequeath the residue of my estate to my beneficiaries in equal shares. ";
+        while (details.length() < size) details.append(clause);
+        details.setLength(size);
+        return details.toString();
+    }
+
+    WillState requestedWill(String willId, int detailsSize) {
+        return requestedWill(willId, "Estate Will", detailsSize);
+    }
+
+    WillState requestedWill(String willId, String willType, int detailsSize) {
+        return new WillState(willId, willType, willDetails(detailsSize), WillStatus.VERIFICATION_REQUESTED, owner.getParty(), verifier.getParty());
+    }
+
+    // As built by RequestWillFlow for long details, a summary inline and the full details in an attachment
+    WillState summarisedWill(String willId, int detailsSize) {
+        String details = willDetails(detailsSize);
+        return new WillState(willId, "Estate Will", WillDetailsAttachments.inlineDetails(details), WillStatus.VERIFICATION_REQUESTED,
+                owner.getParty(), verifier.getParty(), SecureHash.sha256(details));
+    }
+
+    // As built by RequestWillFlow (or RequestWillBatchFlow when wills > 1)
+    TransactionBuilder requestBuilder(int wills, int detailsSize) {
+        return requestBuilder(wills, "Estate Will", detailsSize);
+    }
+
+    TransactionBuilder requestBuilder(int wills, String willType, int detailsSize) {
+        TransactionBuilder txbuilder = new TransactionBuilder(notary);
+        for (int i = 0; i < wills; i++) {
+            txbuilder.addOutputState(requestedWill("WILL-" + i, willType, detailsSize), WILL_CONTRACT_ID);
+        }
+        txbuilder.addCommand(new WillContract.RequestWill(), owner.getPublicKey());
+        return txbuilder;
+    }
+
+    // Issues the wills and records the transaction, so its outputs can be used as inputs of a transition
+    SignedTransaction issue(int wills, int detailsSize) {
+        return issue(wills, "Estate Will", detailsSize);
+    }
+
+    SignedTransaction issue(int wills, String willType, int detailsSize) {
+        SignedTransaction issuance = services.signInitialTransaction(requestBuilder(wills, willType, detailsSize), owner.getPublicKey());
+        services.recordTransactions(Collections.singletonList(issuance));
+        return issuance;
+    }
+
+    // As built by BeneficiaryValidationWillFlow / GenerateWillFlow (or their batch flows) on the wills of a transaction
+    TransactionBuilder transitionBuilder(SignedTransaction inputs, CommandData command, WillStatus willStatus) {
+        TransactionBuilder txbuilder = new TransactionBuilder(notary);
+        for (int i = 0; i < inputs.getTx().getOutputs().size(); i++) {
+            StateAndRef<WillState> input = inputs.getTx().outRef(i);
+            WillState inputState = input.getState().getData();
+            txbuilder.addInputState(input);
+            txbuilder.addOutputState(new WillState(inputState.getWillId(), inputState.getWillType(), inputState.getWillDetails(),
+                    willStatus, inputState.getOwner(), inputState.getVerifier(), inputState.getWillDetailsAttachment()), WILL_CONTRACT_ID);
+        }
+        txbuilder.addCommand(command, verifier.getPublicKey());
+        return txbuilder;
+    }
+
+    // Validates the beneficiaries of the issued wills and records the transaction, the wills can then be generated
+    SignedTransaction validate(SignedTransaction issuance) {
+        SignedTransaction validation = services.signInitialTransaction(
+                transitionBuilder(issuance, new WillContract.BeneficiaryValidationWill(), WillStatus.BENEFICIARY_VALIDATED), verifier.getPublicKey());
+        services.recordTransactions(Collections.singletonList(validation));
+        return validation;
+    }
+
+    @Override
+    public void close() {
+        serializationEnvironment.unset();
+    }
+}
@@ -0,0 +1,59 @@
+package com.template.benchmarks;
+
+import com.template.states.WillState;
+import net.corda.core.serialization.SerializationContext;
+import net.corda.core.serialization.SerializationDefaults;
+import net.corda.core.serialization.SerializationFactory;
+import net.corda.core.serialization.SerializedBytes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AMQP serialization of a WillState, as done for every output sent to a counterparty or stored in a transaction.
+ * The will details size ranges from a short note to a full will of tens of kilobytes, carried either inline or as a
+ * summary plus the id of the attachment holding them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WillStateSerializationBenchmark {
+
+    @Param({"256", "4096", "32768"})
+    public int detailsSize;
+
+    @Param({"inline", "attachment"})
+    public String storage;
+
+    private WillLedgerFixture fixture;
+    private SerializationFactory factory;
+    private SerializationContext context;
+    private WillState willState;
+    private SerializedBytes<WillState> serializedWillState;
+
+    @Setup
+    public void setUp() {
+        fixture = new WillLedgerFixture();
+        factory = SerializationFactory.Companion.getDefaultFactory();
+        context = SerializationDefaults.INSTANCE.getP2P_CONTEXT();
+        willState = storage.equals("attachment")
+                ? fixture.summarisedWill("WILL-1", detailsSize)
+                : fixture.requestedWill("WILL-1", detailsSize);
+        serializedWillState = factory.serialize(willState, context);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public SerializedBytes<WillState> serialize() {
+        return factory.serialize(willState, context);
+    }
+
+    @Benchmark
+    public WillState deserialize() {
+        return factory.deserialize(serializedWillState, WillState.class, context);
+    }
+}
@@ -0,0 +1,36 @@
+package com.template.benchmarks;
+
+import com.template.states.WillType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The WillType lookup the contract validates will types with, against the equalsIgnoreCase chain of the
+ * BaselineWillContract.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WillTypeLookupBenchmark {
+
+    // Will types from the front, middle and back of the baseline's equalsIgnoreCase chain, in mixed case
+    @Param({"Living Will", "pour over WILL", "Deathbed Will"})
+    public String willType;
+
+    @Benchmark
+    public boolean baselineWillTypeCheck() {
+        return willType.equalsIgnoreCase("Living Will")
+                || willType.equalsIgnoreCase("Estate Will")
+                || willType.equalsIgnoreCase("Testamentary Trust Will")
+                || willType.equalsIgnoreCase("Pour Over Will")
+                || willType.equalsIgnoreCase("Simple Will")
+                || willType.equalsIgnoreCase("Joint Will")
+                || willType.equalsIgnoreCase("Deathbed Will");
+    }
+
+    @Benchmark
+    public WillType willTypeLookup() {
+        return WillType.fromLabel(willType);
+    }
+}
@@ -1,49 +1,249 @@
 package com.template;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.template.flows.BeneficiaryValidationWillFlow;
+import com.template.flows.GenerateWillFlow;
+import com.template.flows.RequestWillFlow;
+import com.template.states.WillType;
 import net.corda.client.rpc.CordaRPCClient;
 import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.core.concurrent.CordaFuture;
 import net.corda.core.identity.CordaX500Name;
 import net.corda.core.messaging.CordaRPCOps;
-import net.corda.core.node.NodeInfo;
-import net.corda.core.utilities.NetworkHostAndPort;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import static net.corda.core.utilities.NetworkHostAndPort.parse;
 
 /**
- * Connects to a Corda node via RPC and performs RPC operations on the node.
+ * Load driver that connects to a Corda node via RPC and starts will flows on it.
  *
- * The RPC connection is configured using command line arguments.
+ * Flows are started without waiting for each other, through the futures RPC returns, and at most --concurrency of
+ * them are outstanding at a time. In the closed mode (the default) a new flow is started as soon as one finishes. In
+ * the open mode flows are started at a fixed --rate per second whatever the node's response time, and the response
+ * time is measured from when the flow was due to start, so time spent queued behind a slow node is not left out of
+ * the results (coordinated omission). The service time, from the actual start, is recorded alongside it.
+ *
+ * Latencies are recorded in HdrHistograms and written as CSV or JSON, going by the --output file extension.
  */
 public class Client {
     private static final Logger logger = LoggerFactory.getLogger(Client.class);
 
-    public static void main(String[] args) {
+    // Longest latency recorded, in microseconds; longer ones are recorded as this
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.HOURS.toMicros(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final CordaRPCOps proxy;
+    private final Options options;
+    private final Histogram responseTimes = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final Histogram serviceTimes = new ConcurrentHistogram(HIGHEST_LATENCY_MICROS, 3);
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong lastCompletion = new AtomicLong();
+    private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+    public Client(CordaRPCOps proxy, Options options) {
+        this.proxy = proxy;
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
         // Create an RPC connection to the node.
-        if (args.length != 3) throw new IllegalArgumentException("Usage: Client <node address> <rpc username> <rpc password>");
-        final NetworkHostAndPort nodeAddress = parse(args[0]);
-        final String rpcUsername = args[1];
-        final String rpcPassword = args[2];
-        final CordaRPCClient client = new CordaRPCClient(nodeAddress);
-        final CordaRPCConnection clientConnection = client.start(rpcUsername, rpcPassword);
-        final CordaRPCOps proxy = clientConnection.getProxy();
-
-        // Interact with the node.
-        // Example #1, here we print the nodes on the network.
-        final List<NodeInfo> nodes = proxy.networkMapSnapshot();
-        System.out.println("\n-- Here is the networkMap snapshot --");
-        logger.info("{}", nodes);
-
-        // Example #2, here we print the PartyA's node info
-        CordaX500Name name = proxy.nodeInfo().getLegalIdentities().get(0).getName();//nodeInfo().legalIdentities.first().name
-        System.out.println("\n-- Here is the node info of the node that the client connected to --");
-        logger.info("{}", name);
-
-        //Close the client connection
-        clientConnection.close();
-
-    }
-}
\ No newline at end of file
+        if (args.length < 3) throw new IllegalArgumentException("Usage: Client <node address> <rpc username> <rpc password> "
+                + "[--flow=request|validate|generate] [--mode=closed|open] [--count=N] [--concurrency=N] [--rate=N] "
+                + "[--prefix=ID] [--counterparty=X500 name] [--output=results.csv|results.json]");
+        Options options = Options.parse(args, 3);
+        final CordaRPCClient client = new CordaRPCClient(parse(args[0]));
+        final CordaRPCConnection clientConnection = client.start(args[1], args[2]);
+        try {
+            logger.info("Driving {} {} flows mode={} concurrency={} rate={} node={}", options.count, options.flow, options.mode,
+                    options.concurrency, options.rate, clientConnection.getProxy().nodeInfo().getLegalIdentities().get(0).getName());
+            Map<String, Object> results = new Client(clientConnection.getProxy(), options).run();
+            logger.info("Results {}", results);
+            if (options.output != null) write(results, Paths.get(options.output));
+        } finally {
+            //Close the client connection
+            clientConnection.close();
+        }
+    }
+
+    public Map<String, Object> run() throws InterruptedException {
+        Semaphore outstanding = new Semaphore(options.concurrency);
+        long intervalNanos = options.mode.equals("open") ? TimeUnit.SECONDS.toNanos(1) / options.rate : 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < options.count; i++) {
+            long intended;
+            if (intervalNanos > 0) {
+                //Open mode: flows are due at a fixed rate, whether or not the earlier ones have finished
+                intended = start + i * intervalNanos;
+                for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) LockSupport.parkNanos(wait);
+                outstanding.acquire();
+            } else {
+                //Closed mode: the next flow is due as soon as a slot frees up
+                outstanding.acquire();
+                intended = System.nanoTime();
+            }
+
+            long started = System.nanoTime();
+            CordaFuture<?> result;
+            try {
+                result = startFlow(i);
+            } catch (RuntimeException e) {
+                outstanding.release();
+                failed(e);
+                continue;
+            }
+            result.then(future -> {
+                long now = System.nanoTime();
+                try {
+                    future.get();
+                    responseTimes.recordValue(micros(now - intended));
+                    serviceTimes.recordValue(micros(now - started));
+                    completed.incrementAndGet();
+                } catch (Exception e) {
+                    failed(e.getCause() != null ? e.getCause() : e);
+                } finally {
+                    lastCompletion.accumulateAndGet(now, Math::max);
+                    outstanding.release();
+                }
+                return null;
+            });
+        }
+        //Wait for the flows still running
+        outstanding.acquire(options.concurrency);
+        return results(start);
+    }
+
+    private CordaFuture<?> startFlow(int i) {
+        String willId = options.prefix + "-" + i;
+        CordaX500Name counterparty = CordaX500Name.parse(options.counterparty);
+        switch (options.flow) {
+            case "request":
+                String willType = WillType.values()[i % WillType.values().length].getLabel();
+                return proxy.startFlowDynamic(RequestWillFlow.RequestWillFlowInitiator.class, willId, willType, "Load test will " + i, counterparty).getReturnValue();
+            case "validate":
+                return proxy.startFlowDynamic(BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator.class, willId, counterparty).getReturnValue();
+            default:
+                return proxy.startFlowDynamic(GenerateWillFlow.GenerateWillFlowInitiator.class, willId, counterparty).getReturnValue();
+        }
+    }
+
+    private void failed(Throwable error) {
+        failures.computeIfAbsent(error.getClass().getSimpleName(), key -> new AtomicLong()).incrementAndGet();
+        logger.debug("Flow failed error={}", error.toString());
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(HIGHEST_LATENCY_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    private Map<String, Object> results(long start) {
+        double seconds = Math.max(1, lastCompletion.get() - start) / 1e9;
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("flow", options.flow);
+        results.put("mode", options.mode);
+        results.put("concurrency", options.concurrency);
+        results.put("targetRate", options.mode.equals("open") ? options.rate : null);
+        results.put("started", options.count);
+        results.put("completed", completed.get());
+        results.put("failed", failures.values().stream().mapToLong(AtomicLong::get).sum());
+        results.put("seconds", seconds);
+        results.put("throughput", completed.get() / seconds);
+        results.put("responseTimeMillis", summary(responseTimes));
+        results.put("serviceTimeMillis", summary(serviceTimes));
+        Map<String, Long> failuresByType = new LinkedHashMap<>();
+        failures.forEach((type, count) -> failuresByType.put(type, count.get()));
+        results.put("failures", failuresByType);
+        return results;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("mean", histogram.getMean() / 1000);
+        for (double percentile : PERCENTILES) summary.put("p" + percentile, histogram.getValueAtPercentile(percentile) / 1000.0);
+        summary.put("max", histogram.getMaxValue() / 1000.0);
+        return summary;
+    }
+
+    // One JSON document, or a CSV row per latency percentile for the .csv extension
+    private static void write(Map<String, Object> results, Path output) throws IOException {
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+        if (!output.getFileName().toString().endsWith(".csv")) {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writer.write("flow,mode,concurrency,targetRate,completed,failed,throughput,metric,statistic,millis\n");
+            for (String metric : new String[]{"responseTimeMillis", "serviceTimeMillis"}) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> summary = (Map<String, Object>) results.get(metric);
+                for (Map.Entry<String, Object> statistic : summary.entrySet()) {
+                    writer.write(String.join(",", String.valueOf(results.get("flow")), String.valueOf(results.get("mode")),
+                            String.valueOf(results.get("concurrency")), results.get("targetRate") != null ? String.valueOf(results.get("targetRate")) : "",
+                            String.valueOf(results.get("completed")), String.valueOf(results.get("failed")),
+                            String.valueOf(results.get("throughput")), metric, statistic.getKey(), String.valueOf(statistic.getValue())));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /* What to drive and how, parsed from --name=value options. */
+    static class Options {
+        String flow = "request";
+        String mode = "closed";
+        int count = 1000;
+        int concurrency = 16;
+        int rate = 10;
+        String prefix = "load-" + System.currentTimeMillis();
+        String counterparty;
+        String output;
+
+        static Options parse(String[] args, int from) {
+            Options options = new Options();
+            for (int i = from; i < args.length; i++) {
+                String[] option = args[i].split("=", 2);
+                if (option.length != 2) throw new IllegalArgumentException("Options are given as --name=value, not " + args[i]);
+                switch (option[0]) {
+                    case "--flow": options.flow = option[1]; break;
+                    case "--mode": options.mode = option[1]; break;
+                    case "--count": options.count = Integer.parseInt(option[1]); break;
+                    case "--concurrency": options.concurrency = Integer.parseInt(option[1]); break;
+                    case "--rate": options.rate = Integer.parseInt(option[1]); break;
+                    case "--prefix": options.prefix = option[1]; break;
+                    case "--counterparty": options.counterparty = option[1]; break;
+                    case "--output": options.output = option[1]; break;
+                    default: throw new IllegalArgumentException("Unknown option " + option[0]);
+                }
+            }
+            if (!options.flow.equals("request") && !options.flow.equals("validate") && !options.flow.equals("generate"))
+                throw new IllegalArgumentException("Flow has to be request, validate or generate");
+            if (!options.mode.equals("closed") && !options.mode.equals("open"))
+                throw new IllegalArgumentException("Mode has to be closed or open");
+            if (options.count < 1 || options.concurrency < 1 || options.rate < 1)
+                throw new IllegalArgumentException("Count, concurrency and rate have to be at least 1");
+            //Wills are requested from the certifier, and validated and generated for the owner
+            if (options.counterparty == null) options.counterparty = options.flow.equals("request")
+                    ? "O=WillCertifier,L=New York,C=US"
+                    : "O=WillOwner,L=Charlotte,C=US";
+            return options;
+        }
+    }
+}
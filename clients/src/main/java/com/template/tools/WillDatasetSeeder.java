@@ -0,0 +1,228 @@
+package com.template.tools;
+
+import com.template.flows.BeneficiaryValidationWillBatchFlow;
+import com.template.flows.GenerateWillBatchFlow;
+import com.template.flows.RequestWillBatchFlow;
+import com.template.flows.RequestWillBatchFlow.WillRequest;
+import com.template.flows.WillBatchResult;
+import com.template.states.WillType;
+import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.messaging.CordaRPCOps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static net.corda.core.utilities.NetworkHostAndPort.parse;
+
+/**
+ * Seeds a deployNodes or driver network with a large synthetic will dataset.
+ *
+ * The wills are issued on the owner node with RequestWillBatchFlow, many wills per transaction and several flows at a
+ * time, and the configured share of them is then moved on by the certifier node with the batch transition flows. The
+ * will type mix, the length of the will details and the share of wills left in each status are configurable, and the
+ * dataset is the same for the same seed. Every phase logs its sustained rate in wills per second as it runs and when
+ * it ends.
+ */
+public class WillDatasetSeeder {
+    private static final Logger logger = LoggerFactory.getLogger(WillDatasetSeeder.class);
+
+    // Status a seeded will is left in, as a share of the dataset
+    static final String REQUESTED = "requested";
+    static final String VALIDATED = "validated";
+    static final String GENERATED = "generated";
+
+    private final CordaRPCOps owner;
+    private final CordaRPCOps certifier;
+    private final Options options;
+    private final Random random;
+
+    public WillDatasetSeeder(CordaRPCOps owner, CordaRPCOps certifier, Options options) {
+        this.owner = owner;
+        this.certifier = certifier;
+        this.options = options;
+        this.random = new Random(options.seed);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) throw new IllegalArgumentException("Usage: WillDatasetSeeder <owner node address> <certifier node address> "
+                + "<rpc username> <rpc password> <number of wills> [--batch-size=N] [--wills-per-flow=N] [--parallelism=N] "
+                + "[--details-size=N] [--type-mix=SIMPLE_WILL:3,ESTATE_WILL:1] [--status-mix=requested:2,validated:1,generated:1] "
+                + "[--prefix=ID] [--seed=N]");
+        Options options = Options.parse(Integer.parseInt(args[4]), args, 5);
+
+        CordaRPCConnection ownerConnection = new CordaRPCClient(parse(args[0])).start(args[2], args[3]);
+        CordaRPCConnection certifierConnection = new CordaRPCClient(parse(args[1])).start(args[2], args[3]);
+        try {
+            new WillDatasetSeeder(ownerConnection.getProxy(), certifierConnection.getProxy(), options).run();
+        } finally {
+            ownerConnection.close();
+            certifierConnection.close();
+        }
+    }
+
+    public void run() throws InterruptedException, ExecutionException {
+        CordaX500Name verifier = certifier.nodeInfo().getLegalIdentities().get(0).getName();
+
+        //Draw the whole dataset up front, so it does not depend on the order the flows finish in
+        List<WillRequest> requests = new ArrayList<>(options.count);
+        List<String> toValidate = new ArrayList<>();
+        List<String> toGenerate = new ArrayList<>();
+        for (int i = 0; i < options.count; i++) {
+            String willId = options.prefix + "-" + i;
+            requests.add(new WillRequest(willId, pick(options.typeMix).getLabel(), details(options.detailsSize)));
+            String status = pick(options.statusMix);
+            //A will is only generated once its beneficiaries are validated
+            if (!status.equals(REQUESTED)) toValidate.add(willId);
+            if (status.equals(GENERATED)) toGenerate.add(willId);
+        }
+        logger.info("Seeding {} wills prefix={} requested={} validated={} generated={}", options.count, options.prefix,
+                options.count - toValidate.size(), toValidate.size() - toGenerate.size(), toGenerate.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.parallelism);
+        try {
+            runPhase("RequestWill", executor, owner, requests, chunk -> new Object[]{chunk, verifier, options.batchSize},
+                    RequestWillBatchFlow.RequestWillBatchFlowInitiator.class);
+            runPhase("BeneficiaryValidationWill", executor, certifier, toValidate, chunk -> new Object[]{chunk, options.batchSize},
+                    BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator.class);
+            runPhase("GenerateWill", executor, certifier, toGenerate, chunk -> new Object[]{chunk, options.batchSize},
+                    GenerateWillBatchFlow.GenerateWillBatchFlowInitiator.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Runs one batch flow per chunk of wills, parallelism flows at a time, and reports the rate they complete at
+    private <T> void runPhase(String phase, ExecutorService executor, CordaRPCOps node, List<T> wills,
+                              Function<List<T>, Object[]> flowArgs, Class<? extends FlowLogic<WillBatchResult>> flowClass)
+            throws InterruptedException, ExecutionException {
+        if (wills.isEmpty()) return;
+        long start = System.nanoTime();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong transactions = new AtomicLong();
+
+        List<Future<?>> flows = new ArrayList<>();
+        for (int from = 0; from < wills.size(); from += options.willsPerFlow) {
+            List<T> chunk = new ArrayList<>(wills.subList(from, Math.min(wills.size(), from + options.willsPerFlow)));
+            flows.add(executor.submit(() -> {
+                WillBatchResult result;
+                try {
+                    result = node.startFlowDynamic(flowClass, flowArgs.apply(chunk)).getReturnValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    logger.warn("Seeding flow failed phase={} wills={} error={}", phase, chunk.size(), e.getCause().toString());
+                    failed.addAndGet(chunk.size());
+                    return;
+                }
+                long done = completed.addAndGet(result.getCompletedWillIds().size());
+                failed.addAndGet(result.getFailedWillIds().size());
+                transactions.addAndGet(result.getTransactionIds().size());
+                logger.info("Seeding progress phase={} completed={} of {} rate={}/s", phase, done, wills.size(), rate(done, start));
+            }));
+        }
+        for (Future<?> flow : flows) flow.get();
+
+        logger.info("Seeding phase finished phase={} completed={} failed={} transactions={} seconds={} rate={}/s", phase,
+                completed.get(), failed.get(), transactions.get(), (System.nanoTime() - start) / 1_000_000_000.0, rate(completed.get(), start));
+    }
+
+    private static long rate(long wills, long startNanos) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return wills * 1_000_000_000L / elapsedNanos;
+    }
+
+    private <T> T pick(Map<T, Integer> weights) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int draw = random.nextInt(total);
+        for (Map.Entry<T, Integer> weight : weights.entrySet()) {
+            draw -= weight.getValue();
+            if (draw < 0) return weight.getKey();
+        }
+        throw new IllegalStateException("Weights changed while drawing");
+    }
+
+    private String details(int length) {
+        StringBuilder details = new StringBuilder(length);
+        for (int i = 0; i < length; i++) details.append((char) ('a' + random.nextInt(26)));
+        return details.toString();
+    }
+
+    /* Shape of the dataset and of the submission, parsed from --name=value options. */
+    static class Options {
+        final int count;
+        int batchSize = RequestWillBatchFlow.DEFAULT_BATCH_SIZE;
+        int willsPerFlow = 1000;
+        int parallelism = 4;
+        int detailsSize = 200;
+        Map<WillType, Integer> typeMix = new LinkedHashMap<>();
+        Map<String, Integer> statusMix = new LinkedHashMap<>();
+        String prefix = "seed-" + System.currentTimeMillis();
+        long seed = 42;
+
+        Options(int count) {
+            if (count < 1) throw new IllegalArgumentException("Number of wills has to be at least 1");
+            this.count = count;
+            for (WillType type : WillType.values()) typeMix.put(type, 1);
+            statusMix.put(REQUESTED, 1);
+        }
+
+        static Options parse(int count, String[] args, int from) {
+            Options options = new Options(count);
+            for (int i = from; i < args.length; i++) {
+                String[] option = args[i].split("=", 2);
+                if (option.length != 2) throw new IllegalArgumentException("Options are given as --name=value, not " + args[i]);
+                switch (option[0]) {
+                    case "--batch-size": options.batchSize = Integer.parseInt(option[1]); break;
+                    case "--wills-per-flow": options.willsPerFlow = Integer.parseInt(option[1]); break;
+                    case "--parallelism": options.parallelism = Integer.parseInt(option[1]); break;
+                    case "--details-size": options.detailsSize = Integer.parseInt(option[1]); break;
+                    case "--prefix": options.prefix = option[1]; break;
+                    case "--seed": options.seed = Long.parseLong(option[1]); break;
+                    case "--type-mix":
+                        options.typeMix = weights(option[1], WillType::valueOf);
+                        break;
+                    case "--status-mix":
+                        options.statusMix = weights(option[1], status -> {
+                            if (!status.equals(REQUESTED) && !status.equals(VALIDATED) && !status.equals(GENERATED))
+                                throw new IllegalArgumentException("Unknown status " + status + ", use requested, validated or generated");
+                            return status;
+                        });
+                        break;
+                    default: throw new IllegalArgumentException("Unknown option " + option[0]);
+                }
+            }
+            if (options.batchSize < 1 || options.willsPerFlow < 1 || options.parallelism < 1 || options.detailsSize < 1)
+                throw new IllegalArgumentException("Sizes and parallelism have to be at least 1");
+            return options;
+        }
+
+        // Parses name:weight pairs separated by commas
+        private static <T> Map<T, Integer> weights(String value, Function<String, T> key) {
+            Map<T, Integer> weights = new LinkedHashMap<>();
+            for (String pair : value.split(",")) {
+                String[] parts = pair.split(":", 2);
+                int weight = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : 1;
+                if (weight < 0) throw new IllegalArgumentException("Weights cannot be negative: " + pair);
+                weights.put(key.apply(parts[0].trim()), weight);
+            }
+            if (weights.values().stream().mapToInt(Integer::intValue).sum() < 1) throw new IllegalArgumentException("Weights add up to 0: " + value);
+            return weights;
+        }
+    }
+}
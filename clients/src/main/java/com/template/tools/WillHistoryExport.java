@@ -0,0 +1,257 @@
+package com.template.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.template.states.WillState;
+import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.BinaryComparisonOperator;
+import net.corda.core.node.services.vault.ColumnPredicate;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.corda.core.utilities.NetworkHostAndPort.parse;
+
+/**
+ * Exports every will state a node holds, consumed or not, so the file carries the full transition history of each
+ * will: its request, beneficiary validation and generation, each with the transaction that recorded it.
+ *
+ * The vault is read over RPC one page at a time in recorded order, and each page is appended to the output as NDJSON,
+ * or CSV when the output file ends in .csv, before the next one is asked for. Memory use is bounded by the page size
+ * however large the vault is, and an optional pause between pages keeps the export from crowding out the node's flows.
+ *
+ * Pages are read by key rather than by offset: each one asks for the states recorded at or after the recorded time of
+ * the last exported state, and skips the states of that time that were already exported. A page costs the same at the
+ * end of a large vault as at its start, and states recorded while the export runs cannot shift the pages after them.
+ *
+ * After every page the recorded time and the refs of the last exported states, the number of exported states and the
+ * length of the output are written to a checkpoint file next to the output. A rerun with the same output resumes from
+ * there, dropping anything written after the last checkpoint.
+ */
+public class WillHistoryExport {
+    private static final Logger logger = LoggerFactory.getLogger(WillHistoryExport.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final List<String> COLUMNS = Arrays.asList("willId", "willType", "willStatus", "willDetails",
+            "willDetailsAttachment", "owner", "verifier", "beneficiaries", "coVerifiers", "notary", "transactionId",
+            "outputIndex", "recordedTime", "consumed", "consumedTime");
+
+    // Recorded time first, the state ref breaks ties so states recorded at the same time keep one order across runs
+    private static final Sort RECORDED_ORDER = new Sort(Arrays.asList(
+            new Sort.SortColumn(new SortAttribute.Standard(Sort.VaultStateAttribute.RECORDED_TIME), Sort.Direction.ASC),
+            new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_TXN_ID), Sort.Direction.ASC),
+            new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_INDEX), Sort.Direction.ASC)));
+
+    private final CordaRPCOps proxy;
+    private final Path output;
+    private final Path checkpoint;
+    private final boolean csv;
+    private final int pageSize;
+    private final long pauseMillis;
+    private final ObjectMapper json = new ObjectMapper();
+
+    public WillHistoryExport(CordaRPCOps proxy, Path output, int pageSize, long pauseMillis) {
+        if (pageSize < 1) throw new IllegalArgumentException("Page size has to be at least 1");
+        this.proxy = proxy;
+        this.output = output;
+        this.checkpoint = Paths.get(output + ".checkpoint");
+        this.csv = output.getFileName().toString().endsWith(".csv");
+        this.pageSize = pageSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) throw new IllegalArgumentException(
+                "Usage: WillHistoryExport <node address> <rpc username> <rpc password> <output .ndjson|.csv> [--page-size=N] [--pause-ms=N]");
+        int pageSize = DEFAULT_PAGE_SIZE;
+        long pauseMillis = 0;
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].startsWith("--page-size=")) pageSize = Integer.parseInt(args[i].substring("--page-size=".length()));
+            else if (args[i].startsWith("--pause-ms=")) pauseMillis = Long.parseLong(args[i].substring("--pause-ms=".length()));
+            else throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+
+        CordaRPCConnection connection = new CordaRPCClient(parse(args[0])).start(args[1], args[2]);
+        try {
+            long exported = new WillHistoryExport(connection.getProxy(), Paths.get(args[3]), pageSize, pauseMillis).run();
+            logger.info("Exported {} will states to {}", exported, args[3]);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Exports the states not exported yet and returns the number of states in the output.
+     */
+    public long run() throws IOException, InterruptedException {
+        Properties resumeFrom = readCheckpoint();
+        long exported = Long.parseLong(resumeFrom.getProperty("exported", "0"));
+        long bytes = Long.parseLong(resumeFrom.getProperty("bytes", "0"));
+        Instant lastRecorded = resumeFrom.containsKey("recordedTime") ? Instant.parse(resumeFrom.getProperty("recordedTime")) : null;
+        Set<String> lastRefs = new HashSet<>();
+        String refs = resumeFrom.getProperty("refs", "");
+        if (!refs.isEmpty()) lastRefs.addAll(Arrays.asList(refs.split(",")));
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            //Anything written after the last checkpoint is written again
+            channel.truncate(bytes);
+            channel.position(bytes);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+            if (csv && bytes == 0) writeCsvRow(writer, COLUMNS);
+
+            while (true) {
+                //The states of the last recorded time that were already exported come first, so the page is made larger by their number
+                int requested = pageSize + lastRefs.size();
+                Vault.Page<WillState> page = proxy.vaultQueryBy(recordedFrom(lastRecorded), new PageSpecification(1, requested), RECORDED_ORDER, WillState.class);
+                Instant boundary = lastRecorded;
+                for (int i = 0; i < page.getStates().size(); i++) {
+                    StateAndRef<WillState> stateAndRef = page.getStates().get(i);
+                    Vault.StateMetadata metadata = page.getStatesMetadata().get(i);
+                    String ref = stateAndRef.getRef().toString();
+                    if (metadata.getRecordedTime().equals(boundary) && lastRefs.contains(ref)) continue;
+
+                    writeRecord(writer, record(stateAndRef, metadata));
+                    exported++;
+                    if (!metadata.getRecordedTime().equals(lastRecorded)) {
+                        lastRecorded = metadata.getRecordedTime();
+                        lastRefs = new HashSet<>();
+                    }
+                    lastRefs.add(ref);
+                }
+                writer.flush();
+                writeCheckpoint(lastRecorded, lastRefs, exported, channel.position());
+                logger.info("Exported {} will states, {} left to read", exported, Math.max(0, page.getTotalStatesAvailable() - page.getStates().size()));
+
+                if (page.getStates().size() < requested) return exported;
+                if (pauseMillis > 0) Thread.sleep(pauseMillis);
+            }
+        }
+    }
+
+    // Every state when nothing has been exported yet, otherwise the states recorded at or after the last exported one
+    private static QueryCriteria recordedFrom(Instant lastRecorded) {
+        QueryCriteria.VaultQueryCriteria criteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.ALL);
+        if (lastRecorded == null) return criteria;
+        return criteria.withTimeCondition(new QueryCriteria.TimeCondition(QueryCriteria.TimeInstantType.RECORDED,
+                new ColumnPredicate.BinaryComparison<>(BinaryComparisonOperator.GREATER_THAN_OR_EQUAL, lastRecorded)));
+    }
+
+    private static Map<String, Object> record(StateAndRef<WillState> stateAndRef, Vault.StateMetadata metadata) {
+        WillState will = stateAndRef.getState().getData();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("willId", will.getWillId());
+        record.put("willType", will.getWillType());
+        record.put("willStatus", will.getWillStatus());
+        record.put("willDetails", will.getWillDetails());
+        record.put("willDetailsAttachment", will.getWillDetailsAttachment() != null ? will.getWillDetailsAttachment().toString() : null);
+        record.put("owner", will.getOwner().getName().toString());
+        record.put("verifier", will.getVerifier().getName().toString());
+        record.put("beneficiaries", names(will.getBeneficiaries()));
+        record.put("coVerifiers", names(will.getCoVerifiers()));
+        record.put("notary", stateAndRef.getState().getNotary().getName().toString());
+        record.put("transactionId", stateAndRef.getRef().getTxhash().toString());
+        record.put("outputIndex", stateAndRef.getRef().getIndex());
+        record.put("recordedTime", toString(metadata.getRecordedTime()));
+        record.put("consumed", metadata.getStatus() == Vault.StateStatus.CONSUMED);
+        record.put("consumedTime", toString(metadata.getConsumedTime()));
+        return record;
+    }
+
+    private static List<String> names(List<Party> parties) {
+        return parties.stream().map(party -> party.getName().toString()).collect(Collectors.toList());
+    }
+
+    private void writeRecord(Writer writer, Map<String, Object> record) throws IOException {
+        if (csv) {
+            writeCsvRow(writer, record.values());
+        } else {
+            writer.write(json.writeValueAsString(record));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, Iterable<?> values) throws IOException {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) writer.write(',');
+            first = false;
+            if (value == null) continue;
+            //A list of parties goes into one cell, X500 names contain commas so the cell ends up quoted
+            String text = value instanceof Collection
+                    ? ((Collection<?>) value).stream().map(Object::toString).collect(Collectors.joining(";"))
+                    : value.toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+                text = '"' + text.replace("\"", "\"\"") + '"';
+            }
+            writer.write(text);
+        }
+        writer.write('\n');
+    }
+
+    private static String toString(Instant instant) {
+        return instant != null ? instant.toString() : null;
+    }
+
+    private Properties readCheckpoint() throws IOException {
+        Properties properties = new Properties();
+        if (!Files.exists(checkpoint)) return properties;
+        try (InputStream input = Files.newInputStream(checkpoint)) {
+            properties.load(input);
+        }
+        //Checkpoints of the offset based export only hold a count, which cannot be turned into a position
+        if (!"0".equals(properties.getProperty("exported", "0")) && !properties.containsKey("recordedTime")) {
+            throw new IllegalStateException("Checkpoint " + checkpoint + " was taken by an older version of the export, start a new export");
+        }
+        logger.info("Resuming from {} exported will states recorded up to {}", properties.getProperty("exported"), properties.getProperty("recordedTime"));
+        return properties;
+    }
+
+    // Written to a temporary file and moved over the checkpoint, so a crash never leaves a partial checkpoint behind
+    private void writeCheckpoint(Instant lastRecorded, Set<String> lastRefs, long exported, long bytes) throws IOException {
+        Properties properties = new Properties();
+        if (lastRecorded != null) {
+            properties.setProperty("recordedTime", lastRecorded.toString());
+            properties.setProperty("refs", String.join(",", lastRefs));
+        }
+        properties.setProperty("exported", String.valueOf(exported));
+        properties.setProperty("bytes", String.valueOf(bytes));
+        Path temporary = Paths.get(checkpoint + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            properties.store(out, "Will history export of " + output);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,11 +1,50 @@
 package com.template.webserver;
 
-import net.corda.core.messaging.CordaRPCOps;
+import com.template.flows.BeneficiaryValidationWillFlow;
+import com.template.flows.GenerateWillFlow;
+import com.template.flows.RequestWillFlow;
+import com.template.flows.SearchVaultFlow.WillSearchFilter;
+import com.template.flows.SubmitWillFlow;
+import com.template.flows.SubmitWillFlow.WillSubmission;
+import com.template.flows.WillDetailsAttachments;
+import com.template.flows.WillQueries;
+import com.template.flows.WillStatisticsFlow.WillStatistics;
+import com.template.states.WillState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.template.flows.SearchVaultFlow.DEFAULT_PAGE_SIZE;
+import static com.template.flows.SearchVaultFlow.MAX_PAGE_SIZE;
+import static net.corda.core.utilities.KotlinUtilsKt.getOrThrow;
 
 /**
  * Define your API endpoints here.
@@ -13,15 +52,289 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/") // The paths for HTTP requests are relative to this base path.
 public class Controller {
-    private final CordaRPCOps proxy;
+    // Labels of the nodes in config.rpc.nodes that the will flows are started on
+    static final String OWNER_NODE = "owner";
+    static final String CERTIFIER_NODE = "certifier";
+
+    // Longest wait for the node to store or look up a will submission
+    private static final Duration SUBMISSION_TIMEOUT = Duration.ofSeconds(30);
+
+    private final NodeRPCConnectionPool rpc;
+    private final WillStatusFeed willStatusFeed;
+    private final FlowRunner flowRunner;
+    private final WillStateCache willStateCache;
     private final static Logger logger = LoggerFactory.getLogger(Controller.class);
 
-    public Controller(NodeRPCConnection rpc) {
-        this.proxy = rpc.proxy;
+    public Controller(NodeRPCConnectionPool rpc, WillStatusFeed willStatusFeed, FlowRunner flowRunner, WillStateCache willStateCache) {
+        this.rpc = rpc;
+        this.willStatusFeed = willStatusFeed;
+        this.flowRunner = flowRunner;
+        this.willStateCache = willStateCache;
     }
 
     @GetMapping(value = "/templateendpoint", produces = "text/plain")
     private String templateendpoint() {
         return "Define an endpoint here.";
     }
-}
\ No newline at end of file
+
+    /**
+     * Server-Sent Events feed of the unconsumed wills matching the filter: a snapshot first, then only the changes.
+     */
+    @GetMapping(value = "/wills/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter willFeed(@RequestParam(value = "willStatus", required = false) String willStatus,
+                               @RequestParam(value = "willType", required = false) String willType,
+                               @RequestParam(value = "owner", required = false) String owner,
+                               @RequestParam(value = "verifier", required = false) String verifier) {
+        WillSearchFilter filter = new WillSearchFilter(Vault.StateStatus.UNCONSUMED, willType, willStatus,
+                owner != null ? CordaX500Name.parse(owner) : null,
+                verifier != null ? CordaX500Name.parse(verifier) : null);
+        return willStatusFeed.subscribe(filter);
+    }
+
+    /**
+     * Starts RequestWillFlow for a new will on the owner node. Returns 202 with the flow id, or 429 when too many flows
+     * are in flight.
+     */
+    @PostMapping(value = "/wills", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> requestWill(@RequestBody WillRequestBody body) {
+        if (body.getVerifier() == null) return badRequest("verifier is required");
+        // The flow resolves the name on the node, which saves a round trip here
+        return startFlow(OWNER_NODE, RequestWillFlow.RequestWillFlowInitiator.class,
+                body.getWillId(), body.getWillType(), body.getWillDetails(), CordaX500Name.parse(body.getVerifier()),
+                parseNames(body.getBeneficiaries()), parseNames(body.getCoVerifiers()));
+    }
+
+    /**
+     * Queues a new will in the owner node's outbox and returns 202 with the request id once it is stored. The node
+     * issues the will in the background, its progress is read from GET /wills/submissions/{requestId}.
+     */
+    @PostMapping(value = "/wills/submissions", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> submitWill(@RequestBody WillRequestBody body) {
+        if (body.getVerifier() == null) return badRequest("verifier is required");
+        // The outbox stores the owner and verifier only, wills with more parties go through POST /wills
+        if (!parseNames(body.getBeneficiaries()).isEmpty() || !parseNames(body.getCoVerifiers()).isEmpty())
+            return badRequest("beneficiaries and coVerifiers are not supported for queued submissions");
+        // The flow only stores the request, so waiting for it costs one local transaction on the node
+        String requestId = rpc.withProxy(OWNER_NODE, proxy -> getOrThrow(proxy.startFlowDynamic(SubmitWillFlow.SubmitWillFlowInitiator.class,
+                body.getWillId(), body.getWillType(), body.getWillDetails(), CordaX500Name.parse(body.getVerifier())).getReturnValue(),
+                SUBMISSION_TIMEOUT));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("requestId", requestId);
+        response.put("status", "/wills/submissions/" + requestId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Progress of a will queued through POST /wills/submissions, as kept in the owner node's outbox.
+     */
+    @GetMapping(value = "/wills/submissions/{requestId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<WillSubmission> willSubmission(@PathVariable("requestId") String requestId) {
+        WillSubmission submission = rpc.withProxy(OWNER_NODE, proxy -> getOrThrow(proxy.startFlowDynamic(
+                SubmitWillFlow.WillSubmissionStatusFlow.class, requestId).getReturnValue(), SUBMISSION_TIMEOUT));
+        if (submission == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(submission);
+    }
+
+    /**
+     * Starts BeneficiaryValidationWillFlow for an existing will on the certifier node.
+     */
+    @PostMapping(value = "/wills/{willId}/beneficiary-validation", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> validateBeneficiary(@PathVariable("willId") String willId, @RequestBody WillTransitionBody body) {
+        if (body.getCounterparty() == null) return badRequest("counterparty is required");
+        return startFlow(CERTIFIER_NODE, BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator.class, willId,
+                CordaX500Name.parse(body.getCounterparty()));
+    }
+
+    /**
+     * Starts GenerateWillFlow for an existing will on the certifier node, sending the generated will to the given owner.
+     */
+    @PostMapping(value = "/wills/{willId}/generation", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> generateWill(@PathVariable("willId") String willId, @RequestBody WillTransitionBody body) {
+        if (body.getCounterparty() == null) return badRequest("counterparty is required");
+        return startFlow(CERTIFIER_NODE, GenerateWillFlow.GenerateWillFlowInitiator.class, willId,
+                CordaX500Name.parse(body.getCounterparty()));
+    }
+
+    /**
+     * Progress and, once finished, the result or error of a flow started through this API.
+     */
+    @GetMapping(value = "/flows/{flowId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<FlowStatus> flowStatus(@PathVariable("flowId") String flowId) {
+        FlowStatus status = flowRunner.status(flowId);
+        if (status == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * One page of the wills matching the filter. Queried straight from the vault of the given node, or the first
+     * configured node, over RPC so no flow is started.
+     */
+    @GetMapping(value = "/wills", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> searchWills(@RequestParam(value = "stateStatus", required = false) Vault.StateStatus stateStatus,
+                                                           @RequestParam(value = "willType", required = false) String willType,
+                                                           @RequestParam(value = "willStatus", required = false) String willStatus,
+                                                           @RequestParam(value = "owner", required = false) String owner,
+                                                           @RequestParam(value = "verifier", required = false) String verifier,
+                                                           @RequestParam(value = "page", defaultValue = "1") int page,
+                                                           @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+                                                           @RequestParam(value = "node", required = false) String node) {
+        if (page < 1 || size < 1 || size > MAX_PAGE_SIZE)
+            return badRequest("page has to be at least 1 and size between 1 and " + MAX_PAGE_SIZE);
+
+        WillSearchFilter filter = new WillSearchFilter(stateStatus, willType, willStatus,
+                owner != null ? CordaX500Name.parse(owner) : null,
+                verifier != null ? CordaX500Name.parse(verifier) : null);
+        Vault.Page<WillState> results = rpc.withProxy(node != null ? node : rpc.defaultNode(), proxy -> proxy.vaultQueryBy(
+                WillQueries.search(filter), new PageSpecification(page, size), WillQueries.SEARCH_ORDER, WillState.class));
+
+        List<WillView> wills = new ArrayList<>(results.getStates().size());
+        for (int i = 0; i < results.getStates().size(); i++) {
+            StateAndRef<WillState> will = results.getStates().get(i);
+            boolean consumed = results.getStatesMetadata().get(i).getStatus() == Vault.StateStatus.CONSUMED;
+            wills.add(WillView.of(will.getState().getData(), will.getRef(), consumed));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("results", wills);
+        body.put("nextPage", (long) page * size < results.getTotalStatesAvailable() ? page + 1 : null);
+        body.put("totalResults", results.getTotalStatesAvailable());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * The unconsumed state of a single will. Served from the will state cache unless another node than the one the
+     * cache follows is asked for.
+     */
+    @GetMapping(value = "/wills/{willId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<WillView> getWill(@PathVariable("willId") String willId,
+                                            @RequestParam(value = "node", required = false) String node) {
+        StateAndRef<WillState> will;
+        if (node == null || node.equals(willStatusFeed.getNode())) {
+            will = willStateCache.get(willId);
+        } else {
+            List<StateAndRef<WillState>> states = rpc.withProxy(node, proxy -> proxy.vaultQueryBy(
+                    WillQueries.unconsumedByWillId(willId), new PageSpecification(1, 1), WillQueries.SEARCH_ORDER, WillState.class)).getStates();
+            will = states.isEmpty() ? null : states.get(0);
+        }
+        if (will == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(WillView.of(will.getState().getData(), will.getRef(), false));
+    }
+
+    /**
+     * The full details of a will. Long details are read from the will details attachment over RPC.
+     */
+    @GetMapping(value = "/wills/{willId}/details", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getWillDetails(@PathVariable("willId") String willId) {
+        StateAndRef<WillState> will = willStateCache.get(willId);
+        if (will == null) return ResponseEntity.notFound().build();
+        WillState willState = will.getState().getData();
+        if (willState.getWillDetailsAttachment() == null) return ResponseEntity.ok(willState.getWillDetails());
+
+        String details = rpc.withProxy(willStatusFeed.getNode(), proxy -> {
+            try (InputStream attachment = proxy.openAttachment(willState.getWillDetailsAttachment())) {
+                return WillDetailsAttachments.read(attachment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok(details);
+    }
+
+    /**
+     * Number of wills per will type, will status, owner and verifier in the vault of the given node, or the first
+     * configured node. Counted with grouped aggregate queries over RPC, so no will state is loaded.
+     */
+    @GetMapping(value = "/wills/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public WillStatistics willStatistics(@RequestParam(value = "stateStatus", required = false) Vault.StateStatus stateStatus,
+                                         @RequestParam(value = "node", required = false) String node) {
+        Vault.StateStatus status = stateStatus != null ? stateStatus : Vault.StateStatus.UNCONSUMED;
+        return rpc.withProxy(node != null ? node : rpc.defaultNode(), proxy -> WillStatistics.compute(
+                (criteria, paging) -> proxy.vaultQueryByWithPagingSpec(WillState.class, criteria, paging), status));
+    }
+
+    /**
+     * Hit, miss and eviction counters of the will state cache.
+     */
+    @GetMapping(value = "/wills/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> willCacheStats() {
+        return willStateCache.stats();
+    }
+
+    /**
+     * Health and call counters of the RPC connection pool, per node.
+     */
+    @GetMapping(value = "/rpc/pool", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Map<String, Object>> rpcPool() {
+        return rpc.stats();
+    }
+
+    @ExceptionHandler(NodeRPCConnectionPool.NodeUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> nodeUnavailable(NodeRPCConnectionPool.NodeUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    // Malformed X500 names and unknown node labels
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> invalidArgument(IllegalArgumentException e) {
+        return badRequest(e.getMessage());
+    }
+
+    // Will submissions rejected by the node, e.g. for an unknown will type
+    @ExceptionHandler(FlowException.class)
+    public ResponseEntity<Map<String, Object>> flowRejected(FlowException e) {
+        return badRequest(e.getMessage());
+    }
+
+    private ResponseEntity<Map<String, Object>> startFlow(String node, Class<? extends FlowLogic<?>> flowClass, Object... args) {
+        String flowId = flowRunner.start(node, flowClass, args);
+        if (flowId == null) {
+            //Push back rather than queue, the caller retries once some of the running flows have finished
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(Collections.singletonMap("error", "Too many flows in flight, retry later"));
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("flowId", flowId);
+        body.put("status", "/flows/" + flowId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    private static List<CordaX500Name> parseNames(List<String> names) {
+        if (names == null) return Collections.emptyList();
+        return names.stream().map(CordaX500Name::parse).collect(Collectors.toList());
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String error) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", error));
+    }
+
+    /* JSON body of POST /wills, the beneficiaries and co-verifiers are optional lists of X500 names. */
+    public static class WillRequestBody {
+        private String willId;
+        private String willType;
+        private String willDetails;
+        private String verifier;
+        private List<String> beneficiaries;
+        private List<String> coVerifiers;
+
+        public String getWillId() { return willId; }
+        public void setWillId(String willId) { this.willId = willId; }
+        public String getWillType() { return willType; }
+        public void setWillType(String willType) { this.willType = willType; }
+        public String getWillDetails() { return willDetails; }
+        public void setWillDetails(String willDetails) { this.willDetails = willDetails; }
+        public String getVerifier() { return verifier; }
+        public void setVerifier(String verifier) { this.verifier = verifier; }
+        public List<String> getBeneficiaries() { return beneficiaries; }
+        public void setBeneficiaries(List<String> beneficiaries) { this.beneficiaries = beneficiaries; }
+        public List<String> getCoVerifiers() { return coVerifiers; }
+        public void setCoVerifiers(List<String> coVerifiers) { this.coVerifiers = coVerifiers; }
+    }
+
+    /* JSON body of the will transition endpoints, the X500 name of the other party of the flow. */
+    public static class WillTransitionBody {
+        private String counterparty;
+
+        public String getCounterparty() { return counterparty; }
+        public void setCounterparty(String counterparty) { this.counterparty = counterparty; }
+    }
+}
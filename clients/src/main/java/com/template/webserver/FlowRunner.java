@@ -0,0 +1,126 @@
+package com.template.webserver;
+
+import com.template.flows.WillBatchResult;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.messaging.FlowProgressHandle;
+import net.corda.core.transactions.SignedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Starts flows on the node without waiting for them, and keeps their progress and outcome for the status endpoint.
+ *
+ * At most config.flows.max-in-flight flows started from the web tier run at once. Once the limit is reached further
+ * starts are refused, so callers get pushed back instead of the node's flow state machine being flooded.
+ */
+@Component
+public class FlowRunner {
+    private final static Logger logger = LoggerFactory.getLogger(FlowRunner.class);
+
+    private final NodeRPCConnectionPool rpc;
+
+    @Value("${config.flows.max-in-flight:64}")
+    private int maxInFlight;
+    // Number of finished flows whose outcome is kept for the status endpoint
+    @Value("${config.flows.retained:10000}")
+    private int retained;
+
+    private Semaphore inFlight;
+    // Running flows are kept until they finish, only the finished ones are evicted, oldest first
+    private final Map<String, FlowStatus> running = new ConcurrentHashMap<>();
+    private Map<String, FlowStatus> finished;
+
+    public FlowRunner(NodeRPCConnectionPool rpc) {
+        this.rpc = rpc;
+    }
+
+    @PostConstruct
+    public void initialise() {
+        inFlight = new Semaphore(maxInFlight);
+        finished = Collections.synchronizedMap(new LinkedHashMap<String, FlowStatus>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FlowStatus> eldest) {
+                return size() > retained;
+            }
+        });
+    }
+
+    /**
+     * Starts the flow on the given node and returns its id straight away, or null when the in-flight limit has been
+     * reached.
+     */
+    public String start(String node, Class<? extends FlowLogic<?>> flowClass, Object... args) {
+        if (!inFlight.tryAcquire()) return null;
+
+        FlowProgressHandle<?> handle;
+        try {
+            handle = rpc.withProxy(node, proxy -> proxy.startTrackedFlowDynamic(flowClass, args));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+
+        String flowId = handle.getId().getUuid().toString();
+        FlowStatus status = new FlowStatus(flowId, flowClass.getSimpleName());
+        running.put(flowId, status);
+        handle.getProgress().subscribe(status::setProgress, error -> { });
+        handle.getReturnValue().then(future -> {
+            try {
+                status.complete(resultView(future.get()));
+            } catch (ExecutionException e) {
+                status.fail(e.getCause() != null ? e.getCause().toString() : e.toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status.fail(e.toString());
+            } finally {
+                // Listed as finished before it leaves the running flows, so a status lookup never misses it
+                finished.put(flowId, status);
+                running.remove(flowId);
+                inFlight.release();
+                handle.close();
+            }
+            return null;
+        });
+        logger.info("Started {} on {} as flow {}", flowClass.getSimpleName(), node, flowId);
+        return flowId;
+    }
+
+    public FlowStatus status(String flowId) {
+        FlowStatus status = running.get(flowId);
+        return status != null ? status : finished.get(flowId);
+    }
+
+    public int available() {
+        return inFlight.availablePermits();
+    }
+
+    // Flow results in a form that serialises to readable JSON
+    private static Object resultView(Object result) {
+        if (result instanceof SignedTransaction) {
+            return Collections.singletonMap("transactionId", ((SignedTransaction) result).getId().toString());
+        }
+        if (result instanceof WillBatchResult) {
+            WillBatchResult batchResult = (WillBatchResult) result;
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("completedWillIds", batchResult.getCompletedWillIds());
+            view.put("failedWillIds", batchResult.getFailedWillIds());
+            view.put("transactionIds", batchResult.getTransactionIds().stream().map(Object::toString).collect(Collectors.toList()));
+            Map<String, String> distributionErrors = new LinkedHashMap<>();
+            batchResult.getDistributionErrors().forEach((txId, error) -> distributionErrors.put(txId.toString(), error));
+            view.put("distributionErrors", distributionErrors);
+            return view;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package com.template.webserver;
+
+/**
+ * Progress and outcome of a flow started through the web tier.
+ */
+public class FlowStatus {
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String flowId;
+    private final String flowName;
+    private volatile State state = State.RUNNING;
+    private volatile String progress;
+    private volatile Object result;
+    private volatile String error;
+
+    public FlowStatus(String flowId, String flowName) {
+        this.flowId = flowId;
+        this.flowName = flowName;
+    }
+
+    void setProgress(String progress) { this.progress = progress; }
+
+    void complete(Object result) {
+        this.result = result;
+        this.state = State.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.state = State.FAILED;
+    }
+
+    public String getFlowId() { return flowId; }
+    public String getFlowName() { return flowName; }
+    public State getState() { return state; }
+    public String getProgress() { return progress; }
+    public Object getResult() { return result; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,274 @@
+package com.template.webserver;
+
+import net.corda.client.rpc.CordaRPCClient;
+import net.corda.client.rpc.CordaRPCConnection;
+import net.corda.client.rpc.GracefulReconnect;
+import net.corda.client.rpc.RPCException;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.core.utilities.NetworkHostAndPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Pool of RPC connections to one or more Corda nodes.
+ *
+ * The nodes are configured as a list of label=host:port pairs, e.g.
+ * --config.rpc.nodes=owner=localhost:10006,certifier=localhost:10009. When no list is given a single node labelled
+ * "default" is built from config.rpc.host and config.rpc.port.
+ *
+ * Every node gets config.rpc.connections-per-node reconnecting connections. Calls are handed the healthy connection
+ * with the fewest calls in progress. Each connection is health checked in the background, and a connection that
+ * fails its check is closed and reopened with exponential backoff.
+ */
+@Component
+public class NodeRPCConnectionPool implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(NodeRPCConnectionPool.class);
+
+    public static final String DEFAULT_NODE = "default";
+
+    // The nodes we are connecting to, as label=host:port pairs separated by commas.
+    @Value("${config.rpc.nodes:}")
+    private String nodes;
+    // The host and RPC port of the node we are connecting to when no list of nodes is given.
+    @Value("${config.rpc.host:localhost}")
+    private String host;
+    @Value("${config.rpc.port:0}")
+    private int rpcPort;
+    // The username and password for logging into the RPC client, shared by all nodes.
+    @Value("${config.rpc.username}")
+    private String username;
+    @Value("${config.rpc.password}")
+    private String password;
+    @Value("${config.rpc.connections-per-node:2}")
+    private int connectionsPerNode;
+    // Number of attempts a connection makes to reconnect on its own before the health check reopens it.
+    @Value("${config.rpc.reconnect-attempts:5}")
+    private int reconnectAttempts;
+    @Value("${config.rpc.health-check-interval-ms:5000}")
+    private long healthCheckInterval;
+    @Value("${config.rpc.initial-backoff-ms:500}")
+    private long initialBackoff;
+    @Value("${config.rpc.max-backoff-ms:60000}")
+    private long maxBackoff;
+
+    private final Map<String, NodePool> pools = new LinkedHashMap<>();
+    private ScheduledExecutorService healthChecks;
+    private volatile boolean closed;
+
+    @PostConstruct
+    public void initialiseConnections() {
+        if (nodes.trim().isEmpty()) {
+            pools.put(DEFAULT_NODE, new NodePool(DEFAULT_NODE, new NetworkHostAndPort(host, rpcPort)));
+        } else {
+            for (String node : nodes.split(",")) {
+                String[] labelAndAddress = node.trim().split("=", 2);
+                if (labelAndAddress.length != 2) throw new IllegalArgumentException("Expected label=host:port in config.rpc.nodes but got " + node);
+                pools.put(labelAndAddress[0], new NodePool(labelAndAddress[0], NetworkHostAndPort.parse(labelAndAddress[1])));
+            }
+        }
+
+        // One thread per connection, a health check can block while its connection is reconnecting
+        healthChecks = Executors.newScheduledThreadPool(pools.size() * connectionsPerNode, runnable -> {
+            Thread thread = new Thread(runnable, "rpc-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first connection attempts are made straight away in the background, so an unreachable node does not hold
+        // up startup, and a reachable node can be used as soon as its connection is open
+        pools.values().forEach(pool -> pool.connections.forEach(connection -> healthChecks.execute(() -> check(connection))));
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (healthChecks != null) healthChecks.shutdownNow();
+        pools.values().forEach(pool -> pool.connections.forEach(PooledConnection::close));
+    }
+
+    /**
+     * Runs the call on a healthy connection to the node. Fails with NodeUnavailableException when the node has no
+     * healthy connection.
+     */
+    public <T> T withProxy(String node, Function<CordaRPCOps, T> call) {
+        NodePool pool = pool(node);
+        PooledConnection connection = pool.borrow();
+        connection.inUse.incrementAndGet();
+        pool.calls.incrementAndGet();
+        try {
+            return call.apply(connection.proxy());
+        } catch (RPCException e) {
+            // Let the next health check decide whether the connection has to be reopened
+            pool.failures.incrementAndGet();
+            connection.healthy = false;
+            throw e;
+        } catch (RuntimeException e) {
+            pool.failures.incrementAndGet();
+            throw e;
+        } finally {
+            connection.inUse.decrementAndGet();
+        }
+    }
+
+    /**
+     * The label of the first configured node, used when a caller does not ask for a particular node.
+     */
+    public String defaultNode() {
+        return pools.keySet().iterator().next();
+    }
+
+    /**
+     * Connection and call counters of every node, for the pool metrics endpoint.
+     */
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (NodePool pool : pools.values()) {
+            Map<String, Object> nodeStats = new LinkedHashMap<>();
+            nodeStats.put("node", pool.label);
+            nodeStats.put("address", pool.address.toString());
+            nodeStats.put("connections", pool.connections.size());
+            nodeStats.put("healthyConnections", pool.connections.stream().filter(connection -> connection.healthy).count());
+            nodeStats.put("callsInProgress", pool.connections.stream().mapToInt(connection -> connection.inUse.get()).sum());
+            nodeStats.put("calls", pool.calls.get());
+            nodeStats.put("failedCalls", pool.failures.get());
+            nodeStats.put("rejectedCalls", pool.rejected.get());
+            nodeStats.put("disconnects", pool.disconnects.get());
+            nodeStats.put("reconnects", pool.reconnects.get());
+            stats.add(nodeStats);
+        }
+        return stats;
+    }
+
+    private NodePool pool(String node) {
+        NodePool pool = pools.get(node);
+        // A single node serves every label, as the one connection used to before the pool
+        if (pool == null && pools.size() == 1) pool = pools.values().iterator().next();
+        if (pool == null) throw new IllegalArgumentException("No RPC node configured with label " + node);
+        return pool;
+    }
+
+    private void check(PooledConnection connection) {
+        if (closed) return;
+        long delay;
+        try {
+            if (connection.connection == null) connection.open();
+            connection.proxy().currentNodeTime();
+            connection.healthy = true;
+            connection.consecutiveFailures = 0;
+            delay = healthCheckInterval;
+        } catch (Exception e) {
+            // The RPC client also throws checked ActiveMQ exceptions, e.g. on bad credentials, which must not end the checks
+            connection.healthy = false;
+            connection.consecutiveFailures++;
+            // Start again from a fresh connection, the reconnecting client has either given up or the node is gone
+            connection.close();
+            delay = Math.min(maxBackoff, initialBackoff << Math.min(connection.consecutiveFailures - 1, 16));
+            logger.warn("RPC health check of {} connection {} failed ({} in a row), retrying in {} ms: {}",
+                    connection.pool.label, connection.index, connection.consecutiveFailures, delay, e.toString());
+        }
+        if (!closed) healthChecks.schedule(() -> check(connection), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Thrown when a call is made to a node none of whose connections is healthy.
+     */
+    public static class NodeUnavailableException extends RuntimeException {
+        public NodeUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private final class NodePool {
+        final String label;
+        final NetworkHostAndPort address;
+        final List<PooledConnection> connections = new ArrayList<>();
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong disconnects = new AtomicLong();
+        final AtomicLong reconnects = new AtomicLong();
+
+        NodePool(String label, NetworkHostAndPort address) {
+            this.label = label;
+            this.address = address;
+            for (int i = 0; i < connectionsPerNode; i++) connections.add(new PooledConnection(this, i));
+        }
+
+        // The healthy connection with the fewest calls in progress, ties are broken round robin
+        PooledConnection borrow() {
+            int start = Math.floorMod(next.getAndIncrement(), connections.size());
+            PooledConnection chosen = null;
+            for (int i = 0; i < connections.size(); i++) {
+                PooledConnection connection = connections.get((start + i) % connections.size());
+                if (connection.healthy && (chosen == null || connection.inUse.get() < chosen.inUse.get())) chosen = connection;
+            }
+            if (chosen == null) {
+                rejected.incrementAndGet();
+                throw new NodeUnavailableException("No healthy RPC connection to node " + label + " at " + address);
+            }
+            return chosen;
+        }
+    }
+
+    private final class PooledConnection {
+        final NodePool pool;
+        final int index;
+        final AtomicInteger inUse = new AtomicInteger();
+        volatile CordaRPCConnection connection;
+        volatile boolean healthy;
+        // Only touched by the health check of this connection
+        int consecutiveFailures;
+
+        PooledConnection(NodePool pool, int index) {
+            this.pool = pool;
+            this.index = index;
+        }
+
+        void open() {
+            GracefulReconnect gracefulReconnect = new GracefulReconnect(
+                    () -> {
+                        healthy = false;
+                        pool.disconnects.incrementAndGet();
+                    },
+                    () -> {
+                        healthy = true;
+                        pool.reconnects.incrementAndGet();
+                    },
+                    reconnectAttempts);
+            connection = new CordaRPCClient(pool.address).start(username, password, gracefulReconnect);
+            logger.info("Opened RPC connection {} to {} at {}", index, pool.label, pool.address);
+        }
+
+        CordaRPCOps proxy() {
+            CordaRPCConnection current = connection;
+            if (current == null) throw new NodeUnavailableException("RPC connection to node " + pool.label + " is not open");
+            return current.getProxy();
+        }
+
+        void close() {
+            CordaRPCConnection current = connection;
+            connection = null;
+            if (current == null) return;
+            try {
+                current.notifyServerAndClose();
+            } catch (Exception e) {
+                current.forceClose();
+            }
+        }
+    }
+}
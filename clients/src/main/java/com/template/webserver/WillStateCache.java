@@ -0,0 +1,179 @@
+package com.template.webserver;
+
+import com.template.flows.WillQueries;
+import com.template.states.WillState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of the unconsumed WillState of each will id, for the vault followed by the WillStatusFeed.
+ *
+ * A miss is filled from the indexed will id query. Vault updates from the feed replace cached wills with their
+ * successors and record wills that were consumed without one, so a warm lookup never reaches the node. Updates for
+ * wills nobody has read are ignored, so bulk issuance does not push the wills being read out of the cache. Entries are
+ * evicted least recently used beyond config.cache.max-size, and expire after config.cache.ttl-seconds in case an
+ * update was missed while the feed reconnected.
+ */
+@Component
+public class WillStateCache implements WillStatusFeed.UpdateListener {
+    private final NodeRPCConnectionPool rpc;
+    private final WillStatusFeed willStatusFeed;
+
+    @Value("${config.cache.max-size:10000}")
+    private int maxSize;
+    @Value("${config.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private long ttlNanos;
+    private Map<String, Entry> entries;
+    // Will ids being read from the node, with the number of reads in flight for each
+    private final Map<String, Integer> loading = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+
+    public WillStateCache(NodeRPCConnectionPool rpc, WillStatusFeed willStatusFeed) {
+        this.rpc = rpc;
+        this.willStatusFeed = willStatusFeed;
+    }
+
+    @PostConstruct
+    public void initialise() {
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxSize) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+        willStatusFeed.addUpdateListener(this);
+    }
+
+    /**
+     * The unconsumed state of the will, or null when there is none.
+     */
+    public StateAndRef<WillState> get(String willId) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry entry = entries.get(willId);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.will;
+                }
+                entries.remove(willId);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        synchronized (this) {
+            loading.merge(willId, 1, Integer::sum);
+        }
+
+        // Without a live feed a cached will could go stale unnoticed, so the node is asked every time until it is back
+        boolean tracking = willStatusFeed.isTracking();
+        if (!tracking) {
+            try {
+                willStatusFeed.track();
+                tracking = true;
+            } catch (RuntimeException e) {
+                // Keep serving reads from the node
+            }
+        }
+
+        StateAndRef<WillState> will;
+        try {
+            List<StateAndRef<WillState>> states = rpc.withProxy(willStatusFeed.getNode(), proxy -> proxy.vaultQueryBy(
+                    WillQueries.unconsumedByWillId(willId), new PageSpecification(1, 1), WillQueries.SEARCH_ORDER, WillState.class)).getStates();
+            will = states.isEmpty() ? null : states.get(0);
+        } finally {
+            synchronized (this) {
+                loading.computeIfPresent(willId, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+        if (tracking) {
+            synchronized (this) {
+                // An update for this will that arrived while we were querying is newer than what we read
+                entries.putIfAbsent(willId, new Entry(will, now));
+            }
+        }
+        return will;
+    }
+
+    @Override
+    public void onUpdate(Vault.Update<WillState> update) {
+        long now = System.nanoTime();
+        Set<String> reissued = new HashSet<>();
+        synchronized (this) {
+            for (StateAndRef<WillState> produced : update.getProduced()) {
+                String willId = produced.getState().getData().getWillId();
+                reissued.add(willId);
+                if (!isWanted(willId)) continue;
+                entries.put(willId, new Entry(produced, now));
+                updates.incrementAndGet();
+            }
+            for (StateAndRef<WillState> consumed : update.getConsumed()) {
+                String willId = consumed.getState().getData().getWillId();
+                if (reissued.contains(willId) || !isWanted(willId)) continue;
+                entries.put(willId, new Entry(null, now));
+                updates.incrementAndGet();
+            }
+        }
+    }
+
+    // Only wills that are cached or being read are kept up to date, any other is left to the next miss
+    private boolean isWanted(String willId) {
+        return entries.containsKey(willId) || loading.containsKey(willId);
+    }
+
+    @Override
+    public synchronized void onFeedLost() {
+        entries.clear();
+    }
+
+    /**
+     * Hit, miss and eviction counters for the cache statistics endpoint.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("updates", updates.get());
+        return stats;
+    }
+
+    // A null will records that the will id has no unconsumed state
+    private static final class Entry {
+        final StateAndRef<WillState> will;
+        final long loadedAt;
+
+        Entry(StateAndRef<WillState> will, long loadedAt) {
+            this.will = will;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
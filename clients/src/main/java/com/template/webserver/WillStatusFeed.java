@@ -0,0 +1,301 @@
+package com.template.webserver;
+
+import com.template.flows.SearchVaultFlow.WillSearchFilter;
+import com.template.flows.WillQueries;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.messaging.DataFeed;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import rx.Subscription;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes will state changes to Server-Sent Events subscribers.
+ *
+ * A single vaultTrackBy subscription to the node is shared by all subscribers, each subscriber gets its own filtered
+ * snapshot when it connects and then only the changes that match its filter, so dashboards no longer poll the vault.
+ * The feed follows the vault of config.feed.node, or the first configured node. The reconnecting RPC client carries
+ * the subscription over node restarts.
+ *
+ * Updates arrive on the RPC client's thread, which must not wait on HTTP clients. Each subscriber's events are put on
+ * a queue of config.feed.subscriber-buffer events and written out by a sender thread of its own. A subscriber whose
+ * queue is full has fallen behind: its feed is ended, and the client reconnects to a fresh snapshot.
+ */
+@Component
+public class WillStatusFeed {
+    private final static Logger logger = LoggerFactory.getLogger(WillStatusFeed.class);
+
+    private final NodeRPCConnectionPool rpc;
+    private final List<FeedSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final List<UpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+    private Subscription vaultSubscription;
+
+    // Largest snapshot sent to a new subscriber, further wills are picked up with the paged search endpoint
+    @Value("${config.feed.snapshot-limit:500}")
+    private int snapshotLimit;
+    @Value("${config.feed.node:}")
+    private String node;
+    @Value("${config.feed.subscriber-buffer:1000}")
+    private int subscriberBuffer;
+
+    // A sender only runs while its subscriber has events queued, so a stalled client holds up no one else
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "will-feed-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WillStatusFeed(NodeRPCConnectionPool rpc) {
+        this.rpc = rpc;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (node.isEmpty()) node = rpc.defaultNode();
+        try {
+            track();
+        } catch (RuntimeException e) {
+            // The node is not reachable yet, the first subscriber starts tracking once it is
+            logger.warn("Could not start the will state feed from {}: {}", node, e.toString());
+        }
+    }
+
+    /**
+     * Starts tracking the vault if it is not tracked yet. Fails when the node cannot be reached.
+     */
+    public synchronized void track() {
+        if (vaultSubscription != null) return;
+        // Only the updates are used, the snapshot of the shared subscription is kept to a single state
+        QueryCriteria unconsumed = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED);
+        DataFeed<Vault.Page<WillState>, Vault.Update<WillState>> feed = rpc.withProxy(node, proxy -> proxy.vaultTrackBy(
+                unconsumed, new PageSpecification(1, 1), new Sort(Collections.emptyList()), WillState.class));
+        vaultSubscription = feed.getUpdates().subscribe(this::publish, this::feedLost);
+    }
+
+    public synchronized boolean isTracking() {
+        return vaultSubscription != null;
+    }
+
+    /**
+     * The label of the node whose vault the feed follows.
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Registers a listener that is handed every vault update of the shared subscription, before the SSE subscribers.
+     */
+    public void addUpdateListener(UpdateListener listener) {
+        updateListeners.add(listener);
+    }
+
+    private void feedLost(Throwable error) {
+        logger.error("Will state feed failed", error);
+        synchronized (this) {
+            vaultSubscription = null;
+        }
+        updateListeners.forEach(UpdateListener::onFeedLost);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (vaultSubscription != null) vaultSubscription.unsubscribe();
+        subscribers.forEach(subscriber -> subscriber.close(null));
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a feed of the unconsumed wills matching the filter: a "snapshot" event with the current wills, then an
+     * "update" event for every will issued or moved to a new status and a "consumed" event for every will that left
+     * the vault without a successor.
+     */
+    public SseEmitter subscribe(WillSearchFilter filter) {
+        SseEmitter emitter = new SseEmitter(0L);
+        FeedSubscriber subscriber = new FeedSubscriber(filter, emitter);
+        emitter.onCompletion(subscriber::ended);
+        emitter.onTimeout(subscriber::ended);
+
+        // Register before querying so no update is lost between the snapshot and the first delta
+        subscribers.add(subscriber);
+        try {
+            track();
+            List<StateAndRef<WillState>> snapshot = rpc.withProxy(node, proxy -> proxy.vaultQueryBy(
+                    WillQueries.search(filter), new PageSpecification(1, snapshotLimit), WillQueries.SEARCH_ORDER, WillState.class)).getStates();
+            List<WillView> views = new ArrayList<>(snapshot.size());
+            snapshot.forEach(stateAndRef -> views.add(WillView.of(stateAndRef.getState().getData(), stateAndRef.getRef(), false)));
+            subscriber.sendSnapshot(views);
+        } catch (RuntimeException e) {
+            subscriber.close(e);
+        }
+        return emitter;
+    }
+
+    private void publish(Vault.Update<WillState> update) {
+        for (UpdateListener listener : updateListeners) {
+            try {
+                listener.onUpdate(update);
+            } catch (RuntimeException e) {
+                logger.error("Will state update listener failed", e);
+            }
+        }
+        if (subscribers.isEmpty()) return;
+
+        Set<String> reissued = new HashSet<>();
+        List<WillView> produced = new ArrayList<>();
+        update.getProduced().forEach(stateAndRef -> {
+            reissued.add(stateAndRef.getState().getData().getWillId());
+            produced.add(WillView.of(stateAndRef.getState().getData(), stateAndRef.getRef(), false));
+        });
+        List<WillView> consumed = new ArrayList<>();
+        update.getConsumed().forEach(stateAndRef -> {
+            if (!reissued.contains(stateAndRef.getState().getData().getWillId())) {
+                consumed.add(WillView.of(stateAndRef.getState().getData(), stateAndRef.getRef(), true));
+            }
+        });
+
+        for (FeedSubscriber subscriber : subscribers) {
+            produced.stream().filter(subscriber::matches).forEach(view -> subscriber.send("update", view));
+            consumed.stream().filter(subscriber::matches).forEach(view -> subscriber.send("consumed", view));
+        }
+    }
+
+    /**
+     * Receives the vault updates of the shared subscription.
+     */
+    public interface UpdateListener {
+        void onUpdate(Vault.Update<WillState> update);
+
+        // Called when the subscription ends with an error, updates may have been missed until tracking is restarted
+        void onFeedLost();
+    }
+
+    private final class FeedSubscriber {
+        private final WillSearchFilter filter;
+        private final WillType willType;
+        private final WillStatus willStatus;
+        private final SseEmitter emitter;
+        // Deltas that arrive before the snapshot has been sent are held back and sent right after it
+        private List<WillView> pending = new ArrayList<>();
+        private List<String> pendingEvents = new ArrayList<>();
+        // Events waiting for the sender, and whether a sender is running for this subscriber
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        FeedSubscriber(WillSearchFilter filter, SseEmitter emitter) {
+            this.filter = filter;
+            this.willType = filter.getWillType() != null ? WillType.fromLabel(filter.getWillType()) : null;
+            // Resolved the way the snapshot search resolves it, so the deltas match the same wills
+            this.willStatus = filter.getWillStatus() != null ? WillStatus.fromLabel(filter.getWillStatus()) : null;
+            this.emitter = emitter;
+        }
+
+        boolean matches(WillView view) {
+            if (filter.getWillType() != null) {
+                boolean typeMatches = willType != null
+                        ? willType == WillType.fromLabel(view.getWillType())
+                        : filter.getWillType().equalsIgnoreCase(view.getWillType());
+                if (!typeMatches) return false;
+            }
+            if (filter.getWillStatus() != null) {
+                boolean statusMatches = willStatus != null
+                        ? willStatus == WillStatus.fromLabel(view.getWillStatus())
+                        : filter.getWillStatus().equals(view.getWillStatus());
+                if (!statusMatches) return false;
+            }
+            if (filter.getOwner() != null && !filter.getOwner().toString().equals(view.getOwner())) return false;
+            return filter.getVerifier() == null || filter.getVerifier().toString().equals(view.getVerifier());
+        }
+
+        synchronized void sendSnapshot(List<WillView> views) {
+            enqueue("snapshot", views);
+            for (int i = 0; i < pending.size(); i++) enqueue(pendingEvents.get(i), pending.get(i));
+            pending = null;
+            pendingEvents = null;
+        }
+
+        synchronized void send(String eventName, WillView view) {
+            if (pending == null) {
+                enqueue(eventName, view);
+            } else if (pending.size() >= subscriberBuffer) {
+                fellBehind();
+            } else {
+                pending.add(view);
+                pendingEvents.add(eventName);
+            }
+        }
+
+        private void enqueue(String eventName, Object data) {
+            if (closed) return;
+            if (!queue.offer(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON))) {
+                fellBehind();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) senders.execute(this::drain);
+        }
+
+        // Runs on a sender thread until the queue is empty
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    if (closed) return;
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        // The client went away
+                        close(e);
+                        return;
+                    }
+                }
+                sending.set(false);
+                // An event queued after the last poll but before the flag was cleared is sent by this thread
+            } while (!queue.isEmpty() && sending.compareAndSet(false, true));
+        }
+
+        private void fellBehind() {
+            logger.warn("Will feed subscriber fell {} events behind, ending its feed", subscriberBuffer);
+            close(null);
+        }
+
+        // Called by the emitter once the feed has ended, for whatever reason
+        void ended() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        void close(Throwable error) {
+            if (closed) return;
+            ended();
+            if (error != null) emitter.completeWithError(error);
+            else emitter.complete();
+        }
+    }
+}
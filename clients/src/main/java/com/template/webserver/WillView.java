@@ -0,0 +1,46 @@
+package com.template.webserver;
+
+import com.template.flows.SearchVaultFlow;
+import com.template.states.WillState;
+import net.corda.core.contracts.StateRef;
+
+/**
+ * JSON view of a will state, without the will details.
+ */
+public class WillView {
+    private final String willId;
+    private final String willType;
+    private final String willStatus;
+    private final String owner;
+    private final String verifier;
+    private final boolean consumed;
+    private final String stateRef;
+
+    public WillView(String willId, String willType, String willStatus, String owner, String verifier, boolean consumed, String stateRef) {
+        this.willId = willId;
+        this.willType = willType;
+        this.willStatus = willStatus;
+        this.owner = owner;
+        this.verifier = verifier;
+        this.consumed = consumed;
+        this.stateRef = stateRef;
+    }
+
+    public static WillView of(WillState willState, StateRef stateRef, boolean consumed) {
+        return new WillView(willState.getWillId(), willState.getWillType(), willState.getWillStatus(),
+                willState.getOwner().getName().toString(), willState.getVerifier().getName().toString(), consumed, stateRef.toString());
+    }
+
+    public static WillView of(SearchVaultFlow.WillSummary summary) {
+        return new WillView(summary.getWillId(), summary.getWillType(), summary.getWillStatus(),
+                summary.getOwner().toString(), summary.getVerifier().toString(), summary.isConsumed(), summary.getStateRef().toString());
+    }
+
+    public String getWillId() { return willId; }
+    public String getWillType() { return willType; }
+    public String getWillStatus() { return willStatus; }
+    public String getOwner() { return owner; }
+    public String getVerifier() { return verifier; }
+    public boolean isConsumed() { return consumed; }
+    public String getStateRef() { return stateRef; }
+}
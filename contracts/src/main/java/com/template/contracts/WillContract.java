@@ -1,16 +1,25 @@
 package com.template.contracts;
 
 import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
 import net.corda.core.contracts.Command;
 import net.corda.core.contracts.CommandData;
 import net.corda.core.contracts.Contract;
 import net.corda.core.contracts.ContractState;
-import net.corda.core.identity.Party;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.TransactionState;
+import net.corda.core.crypto.SecureHash;
 import net.corda.core.transactions.LedgerTransaction;
 import org.jetbrains.annotations.NotNull;
 
 import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 // ************
 // * Contract *
@@ -19,6 +28,29 @@ public class WillContract implements Contract {
     // This is used to identify our contract when building a transaction.
     public static final String WILL_CONTRACT_ID = "com.template.contracts.WillContract";
 
+    // Longest will details a WillState may carry inline, longer details are kept in an attachment and summarised
+    public static final int MAX_INLINE_DETAILS_LENGTH = 1024;
+
+    // The rules each command is verified against, looked up once per transaction
+    private static final Map<Class<? extends CommandData>, CommandRule> RULES = new HashMap<>();
+
+    // The lifecycle of a will: the status each command moves a will on from, and the status it leaves it in
+    static {
+        //Request Will = issuance of one or more wills, signed by each will's owner
+        RULES.put(RequestWill.class, CommandRule.issuance("Request", WillStatus.VERIFICATION_REQUESTED,
+                "Requester has to sign the request to generate the will"));
+
+        //Beneficiary Validation Will = transition of wills whose verification has been requested, signed by the verifier and co-verifiers
+        RULES.put(BeneficiaryValidationWill.class, CommandRule.transition("Beneficiary Validation",
+                WillStatus.VERIFICATION_REQUESTED, WillStatus.BENEFICIARY_VALIDATED, "The verification request has not been placed",
+                "Requester has to sign the request to complete the Beneficiary Validation for the will"));
+
+        //Generate Will = transition of wills whose beneficiaries have been validated, signed by the verifier and co-verifiers
+        RULES.put(GenerateWill.class, CommandRule.transition("Generate",
+                WillStatus.BENEFICIARY_VALIDATED, WillStatus.WILL_GENERATED, "The beneficiaries of the will have not been validated",
+                "Verifier has to sign the request to complete the Generation of the will"));
+    }
+
     // A transaction is valid if the verify() function of the contract of all the transaction's input and output states
     // does not throw an exception.
     @Override
@@ -26,165 +58,179 @@ public class WillContract implements Contract {
         //Only allow one command to be executed at a time
         if(tx.getCommands().size() != 1) throw new IllegalArgumentException("Transaction can only have one command");
 
-        //Fetch the command
+        //Fetch the command and the rule that goes with it
         Command command  = tx.getCommand(0);
-        CommandData commandType = command.getValue();
+        CommandRule rule = RULES.get(command.getValue().getClass());
+        if(rule == null) throw new IllegalArgumentException("Unrecognised command " + command.getValue());
         List<PublicKey> requiredSigners = command.getSigners(); //get all signers
 
-        if(commandType instanceof RequestWill) {
-            //Request Will Logic
-
-            //Shape rules = governs what input and output are allowed
-            //For this case we want zero inputs and 1 outputs as this is the issuer
-            if(tx.getInputs().size() != 0)
-                throw new IllegalArgumentException("The Issuer cannot have inputs in Request will flow");
-
-            if(tx.getOutputs().size() != 1)
-                throw new IllegalArgumentException("There can only be one output in Request will flow");
-
-            //Content rules = what the contents of input and output would be
-            //Validate if output is of type of will state and the will type is valid
-            ContractState outputState = tx.getOutput(0);
-            if(!(outputState instanceof WillState))
-                throw new IllegalArgumentException("The output of Request will flow should be of Will State");
-
-            WillState willState = (WillState)outputState;
-            if (!(willState.getWillType().equalsIgnoreCase("Living Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Estate Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Testamentary Trust Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Pour Over Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Simple Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Joint Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Deathbed Will"))){
-                throw new IllegalArgumentException("The Will Type can only one of the following Types: "
-                                            + "1.Living Will"
-                                            + "2.Estate Will"
-                                            + "3.Testamentary Trust Will"
-                                            + "4.Pour Over Will"
-                                            + "5.Simple Will"
-                                            + "6.Joint Will"
-                                            + "7.Deathbed Will");
+        if(rule.issuance) verifyIssuance(tx, rule, requiredSigners);
+        else verifyTransition(tx, rule, requiredSigners);
+    }
+
+    private static void verifyIssuance(LedgerTransaction tx, CommandRule rule, List<PublicKey> requiredSigners) {
+        //Shape rules = zero inputs and one or more outputs, a batch of wills can be issued in one transaction
+        if(!tx.getInputs().isEmpty()) throw new IllegalArgumentException(rule.inputsNotAllowed);
+
+        List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        if(outputs.isEmpty()) throw new IllegalArgumentException(rule.outputRequired);
+
+        //Only a batch needs the duplicate check, so a single issuance does not allocate a set
+        Set<String> willIds = outputs.size() > 1 ? new HashSet<>() : null;
+        Set<SecureHash> attachmentIds = null;
+        for(int i = 0; i < outputs.size(); i++) {
+            //Content rules = every output is a will state of a valid will type
+            WillState willState = asWillState(outputs.get(i).getData(), rule.outputNotWillState);
+            checkWillType(willState);
+            if(willState.getStatus() != rule.outputStatus) throw new IllegalArgumentException(rule.wrongOutputStatus);
+
+            //Will details beyond the inline limit travel as an attachment, which has to come with the issuance
+            if(willState.getWillDetails() != null && willState.getWillDetails().length() > MAX_INLINE_DETAILS_LENGTH)
+                throw new IllegalArgumentException("Will details longer than " + MAX_INLINE_DETAILS_LENGTH + " characters have to be stored as an attachment");
+            if(willState.getWillDetailsAttachment() != null) {
+                if(attachmentIds == null) attachmentIds = attachmentIds(tx);
+                if(!attachmentIds.contains(willState.getWillDetailsAttachment()))
+                    throw new IllegalArgumentException("The will details attachment has to be attached to the transaction");
             }
 
-            //Signing Rules = who all would be signing the transaction
-            //To make sure Issuer/requester signs are captured
-            Party requester = willState.getOwner();
-            PublicKey requesterKey = requester.getOwningKey();
+            if(willIds != null && !willIds.add(willState.getWillId()))
+                throw new IllegalArgumentException("A Will Id can only be requested once in a transaction");
 
-            if(!requiredSigners.contains(requesterKey))
-                throw new IllegalArgumentException("Requester has to sign the request to generate the will");
+            //Signing rules = the owner of every will signs
+            if(!requiredSigners.contains(willState.getOwner().getOwningKey()))
+                throw new IllegalArgumentException(rule.signerMissing);
         }
-        else if(commandType instanceof BeneficiaryValidationWill){
-            //Beneficiary Validation Will Logic
-
-            //Shape rules = governs what input and output are allowed
-            //For this case we want zero inputs and 1 outputs as this is the issuer
-            if(tx.getInputs().size() != 1)
-                throw new IllegalArgumentException("There has to be one input in Beneficiary Validation will flow");
-
-            if(tx.getOutputs().size() != 1)
-                throw new IllegalArgumentException("There has to be one output in Beneficiary Validation will flow");
-
-            //Content rules = what the contents of input and output would be
-            //Validate if input is of type of will state and the will type is valid
-            ContractState inputState = tx.getInput(0);
-            if(!(inputState instanceof WillState))
-                throw new IllegalArgumentException("The input of Beneficiary Validation will flow should be of Will State");
-
-            WillState willState = (WillState)inputState;
-            if (!(willState.getWillType().equalsIgnoreCase("Living Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Estate Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Testamentary Trust Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Pour Over Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Simple Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Joint Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Deathbed Will"))){
-                throw new IllegalArgumentException("The Will Type can only one of the following Types: "
-                        + "1.Living Will"
-                        + "2.Estate Will"
-                        + "3.Testamentary Trust Will"
-                        + "4.Pour Over Will"
-                        + "5.Simple Will"
-                        + "6.Joint Will"
-                        + "7.Deathbed Will");
-            }
+    }
 
-            if (!(willState.getWillStatus().equalsIgnoreCase("Verification Requested"))){
-                throw new IllegalArgumentException("The verification request has not been placed");
+    private static void verifyTransition(LedgerTransaction tx, CommandRule rule, List<PublicKey> requiredSigners) {
+        //Shape rules = every input will is consumed and re-issued, so one output per input paired by will id
+        List<StateAndRef<ContractState>> inputs = tx.getInputs();
+        List<TransactionState<ContractState>> outputs = tx.getOutputs();
+        if(inputs.isEmpty()) throw new IllegalArgumentException(rule.inputRequired);
+        if(outputs.size() != inputs.size()) throw new IllegalArgumentException(rule.outputPerInput);
+
+        //A single will is paired directly, a batch is paired through a map of the outputs
+        Map<String, WillState> outputsByWillId = null;
+        WillState singleOutput = null;
+        if(outputs.size() == 1) {
+            singleOutput = asWillState(outputs.get(0).getData(), rule.outputNotWillState);
+        } else {
+            outputsByWillId = new HashMap<>(outputs.size() * 2);
+            for(int i = 0; i < outputs.size(); i++) {
+                WillState outputState = asWillState(outputs.get(i).getData(), rule.outputNotWillState);
+                if(outputsByWillId.put(outputState.getWillId(), outputState) != null)
+                    throw new IllegalArgumentException("A Will Id can only be updated once in a transaction");
             }
-
-            //Validate if output is of type of will state and the will type is valid
-            ContractState outputState = tx.getOutput(0);
-            if(!(outputState instanceof WillState))
-                throw new IllegalArgumentException("The output of Beneficiary Validation will flow should be of Will State");
-
-
-
-            //Signing Rules = who all would be signing the transaction
-            //To make sure Issuer/requester signs are captured
-            Party requester = willState.getVerifier();
-            PublicKey requesterKey = requester.getOwningKey();
-
-            if(!requiredSigners.contains(requesterKey))
-                throw new IllegalArgumentException("Requester has to sign the request to complete the Beneficiary Validation for the will");
         }
-        else if(commandType instanceof GenerateWill){
-            //Generate Will Logic
-
-            //Shape rules = governs what input and output are allowed
-            //For this case we want zero inputs and 1 outputs as this is the issuer
-            if(tx.getInputs().size() != 1)
-                throw new IllegalArgumentException("There has to be one input in Generate will flow");
-
-            if(tx.getOutputs().size() != 1)
-                throw new IllegalArgumentException("There has to be one output in Generate will flow");
-
-            //Content rules = what the contents of input and output would be
-            //Validate if input is of type of will state and the will type is valid
-            ContractState inputState = tx.getInput(0);
-            if(!(inputState instanceof WillState))
-                throw new IllegalArgumentException("The input of Generate will flow should be of Will State");
-
-            WillState willState = (WillState)inputState;
-            if (!(willState.getWillType().equalsIgnoreCase("Living Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Estate Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Testamentary Trust Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Pour Over Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Simple Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Joint Will"))
-                    && !(willState.getWillType().equalsIgnoreCase("Deathbed Will"))){
-                throw new IllegalArgumentException("The Will Type can only one of the following Types: "
-                        + "1.Living Will"
-                        + "2.Estate Will"
-                        + "3.Testamentary Trust Will"
-                        + "4.Pour Over Will"
-                        + "5.Simple Will"
-                        + "6.Joint Will"
-                        + "7.Deathbed Will");
+
+        for(int i = 0; i < inputs.size(); i++) {
+            //Content rules = every input is a will state of a valid will type in the status the command moves on from
+            WillState willState = asWillState(inputs.get(i).getState().getData(), rule.inputNotWillState);
+            checkWillType(willState);
+
+            if(willState.getStatus() != rule.inputStatus) throw new IllegalArgumentException(rule.wrongInputStatus);
+
+            WillState pairedOutput = singleOutput != null
+                    ? (singleOutput.getWillId().equals(willState.getWillId()) ? singleOutput : null)
+                    : outputsByWillId.remove(willState.getWillId());
+            if(pairedOutput == null) throw new IllegalArgumentException(rule.outputNotPaired);
+            if(pairedOutput.getStatus() != rule.outputStatus) throw new IllegalArgumentException(rule.wrongOutputStatus);
+
+            //The will type and details issued with the will are carried over unchanged, so the attachment is not needed again
+            if(!Objects.equals(pairedOutput.getWillType(), willState.getWillType()))
+                throw new IllegalArgumentException(rule.typeChanged);
+            if(!Objects.equals(pairedOutput.getWillDetails(), willState.getWillDetails()))
+                throw new IllegalArgumentException(rule.detailsChanged);
+            if(!Objects.equals(pairedOutput.getWillDetailsAttachment(), willState.getWillDetailsAttachment()))
+                throw new IllegalArgumentException(rule.attachmentChanged);
+
+            //The owner and verifier, like the beneficiaries and co-verifiers, are set when the will is requested and
+            //never change afterwards, a transition only moves the status on
+            if(!pairedOutput.getOwner().equals(willState.getOwner()))
+                throw new IllegalArgumentException(rule.ownerChanged);
+            if(!pairedOutput.getVerifier().equals(willState.getVerifier()))
+                throw new IllegalArgumentException(rule.verifierChanged);
+            if(!pairedOutput.getBeneficiaries().equals(willState.getBeneficiaries()) || !pairedOutput.getCoVerifiers().equals(willState.getCoVerifiers()))
+                throw new IllegalArgumentException(rule.partiesChanged);
+
+            //Signing rules = the verifier and every co-verifier of every will sign
+            if(!requiredSigners.contains(willState.getVerifier().getOwningKey()))
+                throw new IllegalArgumentException(rule.signerMissing);
+            for(int j = 0; j < willState.getCoVerifiers().size(); j++) {
+                if(!requiredSigners.contains(willState.getCoVerifiers().get(j).getOwningKey()))
+                    throw new IllegalArgumentException(rule.coVerifierMissing);
             }
+        }
+    }
 
-            /*//Will use once figure out how to update date and add enw transaction on same node
-            if (!(willState.getWillStatus().equalsIgnoreCase("Validated Beneficiary"))){
-                throw new IllegalArgumentException("The Will beneficiary needs to be validated");
-            }*/
+    private static WillState asWillState(ContractState state, String error) {
+        if(!(state instanceof WillState)) throw new IllegalArgumentException(error);
+        return (WillState)state;
+    }
 
-            if (!(willState.getWillStatus().equalsIgnoreCase("Verification Requested"))){
-                throw new IllegalArgumentException("The verification request has not been placed");
-            }
-            //Validate if output is of type of will state and the will type is valid
-            ContractState outputState = tx.getOutput(0);
-            if(!(outputState instanceof WillState))
-                throw new IllegalArgumentException("The output of Generate will flow should be of Will State");
+    private static Set<SecureHash> attachmentIds(LedgerTransaction tx) {
+        Set<SecureHash> attachmentIds = new HashSet<>();
+        tx.getAttachments().forEach(attachment -> attachmentIds.add(attachment.getId()));
+        return attachmentIds;
+    }
 
+    private static void checkWillType(WillState willState) {
+        if(WillType.fromLabel(willState.getWillType()) == null)
+            throw new IllegalArgumentException(WillType.INVALID_TYPE_MESSAGE);
+    }
 
+    /* What a command requires of a transaction. Error messages are built once here rather than on every verify. */
+    private static final class CommandRule {
+        final boolean issuance;
+        final WillStatus inputStatus;
+        final WillStatus outputStatus;
+        final String wrongInputStatus;
+        final String wrongOutputStatus;
+        final String signerMissing;
+        final String inputsNotAllowed;
+        final String inputRequired;
+        final String outputRequired;
+        final String outputPerInput;
+        final String inputNotWillState;
+        final String outputNotWillState;
+        final String outputNotPaired;
+        final String typeChanged;
+        final String detailsChanged;
+        final String attachmentChanged;
+        final String ownerChanged;
+        final String verifierChanged;
+        final String partiesChanged;
+        final String coVerifierMissing;
+
+        private CommandRule(String flowName, boolean issuance, WillStatus inputStatus, WillStatus outputStatus, String wrongInputStatus, String signerMissing) {
+            this.issuance = issuance;
+            this.inputStatus = inputStatus;
+            this.outputStatus = outputStatus;
+            this.wrongInputStatus = wrongInputStatus;
+            this.wrongOutputStatus = "The output of " + flowName + " will flow has to be in status " + outputStatus.getLabel();
+            this.signerMissing = signerMissing;
+            this.inputsNotAllowed = "The Issuer cannot have inputs in " + flowName + " will flow";
+            this.inputRequired = "There has to be at least one input in " + flowName + " will flow";
+            this.outputRequired = "There has to be at least one output in " + flowName + " will flow";
+            this.outputPerInput = "There has to be one output for every input in " + flowName + " will flow";
+            this.inputNotWillState = "The input of " + flowName + " will flow should be of Will State";
+            this.outputNotWillState = "The output of " + flowName + " will flow should be of Will State";
+            this.outputNotPaired = "Every input of " + flowName + " will flow needs one output with the same Will Id";
+            this.typeChanged = "The will type cannot change in " + flowName + " will flow";
+            this.detailsChanged = "The will details cannot change in " + flowName + " will flow";
+            this.attachmentChanged = "The will details attachment cannot change in " + flowName + " will flow";
+            this.ownerChanged = "The owner cannot change in " + flowName + " will flow";
+            this.verifierChanged = "The verifier cannot change in " + flowName + " will flow";
+            this.partiesChanged = "The beneficiaries and co-verifiers cannot change in " + flowName + " will flow";
+            this.coVerifierMissing = "Every co-verifier has to sign " + flowName + " will flow";
+        }
 
-            //Signing Rules = who all would be signing the transaction
-            //To make sure Issuer/requester signs are captured
-            Party requester = willState.getVerifier();
-            PublicKey requesterKey = requester.getOwningKey();
+        static CommandRule issuance(String flowName, WillStatus outputStatus, String signerMissing) {
+            return new CommandRule(flowName, true, null, outputStatus, null, signerMissing);
+        }
 
-            if(!requiredSigners.contains(requesterKey))
-                throw new IllegalArgumentException("Verifier has to sign the request to complete the Generation of the will");
+        static CommandRule transition(String flowName, WillStatus inputStatus, WillStatus outputStatus, String wrongInputStatus, String signerMissing) {
+            return new CommandRule(flowName, false, inputStatus, outputStatus, wrongInputStatus, signerMissing);
         }
     }
 
@@ -192,4 +238,4 @@ public class WillContract implements Contract {
     public static class RequestWill implements CommandData {}
     public static class GenerateWill implements CommandData {}
     public static class BeneficiaryValidationWill implements CommandData {}
-}
\ No newline at end of file
+}
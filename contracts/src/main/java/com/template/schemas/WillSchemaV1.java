@@ -0,0 +1,71 @@
+package com.template.schemas;
+
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+import org.jetbrains.annotations.Nullable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Collections;
+
+/**
+ * A WillState schema. The lookup columns are indexed so flows can find a will by id (or filter by status, type,
+ * owner and verifier) with a single indexed query instead of scanning every state in the vault.
+ */
+public class WillSchemaV1 extends MappedSchema {
+    public WillSchemaV1() {
+        super(WillSchema.class, 1, Collections.singletonList(PersistentWill.class));
+    }
+
+    @Nullable
+    @Override
+    public String getMigrationResource() {
+        return "will.changelog-master";
+    }
+
+    @Entity
+    @Table(name = "will_states", indexes = {
+            @Index(name = "will_id_idx", columnList = "will_id"),
+            @Index(name = "will_status_idx", columnList = "will_status"),
+            @Index(name = "will_type_idx", columnList = "will_type"),
+            @Index(name = "will_owner_idx", columnList = "owner"),
+            @Index(name = "will_verifier_idx", columnList = "verifier")
+    })
+    public static class PersistentWill extends PersistentState {
+        @Column(name = "will_id", nullable = false) private final String willId;
+        @Column(name = "will_type") private final String willType;
+        @Column(name = "will_status") private final String willStatus;
+        @Column(name = "owner") private final String owner;
+        @Column(name = "verifier") private final String verifier;
+        // Always 1. Vault aggregates can only be grouped for sums, so wills are counted per group by summing this column
+        @Column(name = "tally", nullable = false) private final int tally;
+
+        public PersistentWill(String willId, String willType, String willStatus, String owner, String verifier) {
+            this.willId = willId;
+            this.willType = willType;
+            this.willStatus = willStatus;
+            this.owner = owner;
+            this.verifier = verifier;
+            this.tally = 1;
+        }
+
+        // Default constructor required by hibernate.
+        public PersistentWill() {
+            this.willId = null;
+            this.willType = null;
+            this.willStatus = null;
+            this.owner = null;
+            this.verifier = null;
+            this.tally = 1;
+        }
+
+        public String getWillId() { return willId; }
+        public String getWillType() { return willType; }
+        public String getWillStatus() { return willStatus; }
+        public String getOwner() { return owner; }
+        public String getVerifier() { return verifier; }
+        public int getTally() { return tally; }
+    }
+}
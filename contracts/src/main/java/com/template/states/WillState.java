@@ -1,50 +1,134 @@
 package com.template.states;
 
 import com.template.contracts.WillContract;
+import com.template.schemas.WillSchemaV1;
 import net.corda.core.contracts.BelongsToContract;
-import net.corda.core.contracts.ContractState;
+import net.corda.core.crypto.SecureHash;
 import net.corda.core.identity.AbstractParty;
 import net.corda.core.identity.Party;
+import net.corda.core.schemas.MappedSchema;
+import net.corda.core.schemas.PersistentState;
+import net.corda.core.schemas.QueryableState;
+import net.corda.core.serialization.ConstructorForDeserialization;
+import net.corda.core.serialization.DeprecatedConstructorForDeserialization;
+import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 // *********
 // * State *
 // *********
 @BelongsToContract(WillContract.class)
-public class WillState implements ContractState {
+public class WillState implements QueryableState {
 
     //private variables
     private final String willId;
     private final String willType;
+    //the will details in full, or a short summary of them when the full details are kept in an attachment
     private final String willDetails;
-    private final String willStatus;
+    private final WillStatus status;
     private final Party owner;
     private final Party verifier;
+    //id of the attachment holding the compressed will details, null when the details are held inline
+    private final SecureHash willDetailsAttachment;
+    //parties the will is left to, and verifiers who sign its transitions alongside the verifier, both possibly empty
+    private final List<Party> beneficiaries;
+    private final List<Party> coVerifiers;
 
     /* Constructor of your Corda state */
-    public WillState(String willId, String willType, String willDetails,String willStatus, Party owner, Party verifier) {
+    public WillState(String willId, String willType, String willDetails, WillStatus status, Party owner, Party verifier) {
+        this(willId, willType, willDetails, status, owner, verifier, null);
+    }
+
+    public WillState(String willId, String willType, String willDetails, WillStatus status, Party owner, Party verifier, SecureHash willDetailsAttachment) {
+        this(willId, willType, willDetails, status, owner, verifier, willDetailsAttachment, null, null);
+    }
+
+    public WillState(String willId, String willType, String willDetails, WillStatus status, Party owner, Party verifier, SecureHash willDetailsAttachment,
+                     List<Party> beneficiaries, List<Party> coVerifiers) {
         this.willId = willId;
         this.willType = willType;
         this.willDetails = willDetails;
-        this.willStatus = willStatus;
+        this.status = status;
         this.owner = owner;
         this.verifier = verifier;
+        this.willDetailsAttachment = willDetailsAttachment;
+        this.beneficiaries = beneficiaries != null ? Collections.unmodifiableList(new ArrayList<>(beneficiaries)) : Collections.emptyList();
+        this.coVerifiers = coVerifiers != null ? Collections.unmodifiableList(new ArrayList<>(coVerifiers)) : Collections.emptyList();
+    }
+
+    //The status is serialised as its code rather than its label
+    @ConstructorForDeserialization
+    public WillState(String willId, String willType, String willDetails, int statusCode, Party owner, Party verifier, SecureHash willDetailsAttachment,
+                     List<Party> beneficiaries, List<Party> coVerifiers) {
+        this(willId, willType, willDetails, WillStatus.fromCode(statusCode), owner, verifier, willDetailsAttachment, beneficiaries, coVerifiers);
+    }
+
+    //Reads states serialised before wills had beneficiaries and co-verifiers
+    @DeprecatedConstructorForDeserialization(version = 2)
+    public WillState(String willId, String willType, String willDetails, int statusCode, Party owner, Party verifier, SecureHash willDetailsAttachment) {
+        this(willId, willType, willDetails, WillStatus.fromCode(statusCode), owner, verifier, willDetailsAttachment);
+    }
+
+    //Reads states serialised before the status had a code, when it was carried as its label
+    @DeprecatedConstructorForDeserialization(version = 1)
+    public WillState(String willId, String willType, String willDetails, String willStatus, Party owner, Party verifier, SecureHash willDetailsAttachment) {
+        this(willId, willType, willDetails, WillStatus.fromLabel(willStatus), owner, verifier, willDetailsAttachment);
     }
 
     //getters
     public String getWillId() { return willId; }
     public String getWillType() { return willType; }
     public String getWillDetails() { return willDetails; }
-    public String getWillStatus() { return willStatus; }
+    public WillStatus getStatus() { return status; }
+    public int getStatusCode() { return status != null ? status.getCode() : 0; }
+    //the label of the status, as shown to clients
+    public String getWillStatus() { return status != null ? status.getLabel() : null; }
     public Party getOwner() { return owner; }
     public Party getVerifier() { return verifier; }
+    public SecureHash getWillDetailsAttachment() { return willDetailsAttachment; }
+    public List<Party> getBeneficiaries() { return beneficiaries; }
+    public List<Party> getCoVerifiers() { return coVerifiers; }
 
     /* This method will indicate who are the participants and required signers when
-     * this state is used in a transaction. */
+     * this state is used in a transaction. Every party of the will holds it, each one once. */
     @Override
     public List<AbstractParty> getParticipants() {
-        return Arrays.asList(owner,verifier);
+        if (beneficiaries.isEmpty() && coVerifiers.isEmpty()) return Arrays.asList(owner,verifier);
+        Set<AbstractParty> participants = new LinkedHashSet<>();
+        participants.add(owner);
+        participants.add(verifier);
+        participants.addAll(coVerifiers);
+        participants.addAll(beneficiaries);
+        return new ArrayList<>(participants);
+    }
+
+    /* Maps the state onto the indexed will_states table so it can be looked up without scanning the vault. */
+    @NotNull
+    @Override
+    public PersistentState generateMappedObject(@NotNull MappedSchema schema) {
+        if (schema instanceof WillSchemaV1) {
+            //The will type is stored by its canonical label, so filters on it can use the index without case folding
+            WillType type = WillType.fromLabel(willType);
+            return new WillSchemaV1.PersistentWill(
+                    willId,
+                    type != null ? type.getLabel() : willType,
+                    getWillStatus(),
+                    owner.getName().toString(),
+                    verifier.getName().toString());
+        } else {
+            throw new IllegalArgumentException("Unrecognised schema " + schema);
+        }
+    }
+
+    @NotNull
+    @Override
+    public Iterable<MappedSchema> supportedSchemas() {
+        return Collections.singletonList(new WillSchemaV1());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package com.template.states;
+
+/**
+ * The lifecycle of a will. A will is requested by its owner, has its beneficiaries validated by the verifier and is
+ * then generated; which command moves a will from which status to which is set out in WillContract.
+ *
+ * A WillState carries its status as the code, so the status costs a small integer on the wire instead of its label.
+ * The label is what the vault schema stores and what clients are shown.
+ */
+public enum WillStatus {
+    VERIFICATION_REQUESTED(1, "Verification Requested"),
+    BENEFICIARY_VALIDATED(2, "Validated Beneficiary"),
+    WILL_GENERATED(3, "Will Generated");
+
+    // Statuses indexed by code, codes are small and dense so the lookup is an array access
+    private static final WillStatus[] BY_CODE;
+
+    static {
+        int maxCode = 0;
+        for (WillStatus status : values()) maxCode = Math.max(maxCode, status.code);
+        BY_CODE = new WillStatus[maxCode + 1];
+        for (WillStatus status : values()) BY_CODE[status.code] = status;
+    }
+
+    // Codes are part of the serialised WillState, they can be added to but never changed or reused
+    private final int code;
+    private final String label;
+
+    WillStatus(int code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public int getCode() { return code; }
+    public String getLabel() { return label; }
+
+    /**
+     * Returns the status with the code, or null when the code is not a known status.
+     */
+    public static WillStatus fromCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    /**
+     * Returns the status whose label matches, ignoring case, or null when the label is not a known status.
+     */
+    public static WillStatus fromLabel(String label) {
+        if (label == null) return null;
+        for (WillStatus status : values()) {
+            if (status.label.equalsIgnoreCase(label)) return status;
+        }
+        return null;
+    }
+}
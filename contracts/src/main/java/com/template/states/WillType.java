@@ -0,0 +1,61 @@
+package com.template.states;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The kinds of will the ledger accepts, matched case-insensitively against the free-text will type of a WillState.
+ */
+public enum WillType {
+    LIVING_WILL("Living Will"),
+    ESTATE_WILL("Estate Will"),
+    TESTAMENTARY_TRUST_WILL("Testamentary Trust Will"),
+    POUR_OVER_WILL("Pour Over Will"),
+    SIMPLE_WILL("Simple Will"),
+    JOINT_WILL("Joint Will"),
+    DEATHBED_WILL("Deathbed Will");
+
+    // Error reported for an unknown will type, built once instead of on every failed check
+    public static final String INVALID_TYPE_MESSAGE;
+
+    // Types bucketed by label length, so a lookup compares against at most a couple of labels without allocating
+    private static final WillType[][] BY_LABEL_LENGTH;
+
+    static {
+        StringBuilder message = new StringBuilder("The Will Type can only one of the following Types: ");
+        int maxLength = 0;
+        for (WillType type : values()) {
+            message.append(type.ordinal() + 1).append('.').append(type.label);
+            maxLength = Math.max(maxLength, type.label.length());
+        }
+        INVALID_TYPE_MESSAGE = message.toString();
+
+        BY_LABEL_LENGTH = new WillType[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            List<WillType> bucket = new ArrayList<>();
+            for (WillType type : values()) {
+                if (type.label.length() == length) bucket.add(type);
+            }
+            BY_LABEL_LENGTH[length] = bucket.toArray(new WillType[0]);
+        }
+    }
+
+    private final String label;
+
+    WillType(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() { return label; }
+
+    /**
+     * Returns the type whose label matches, ignoring case, or null when the label is not a known will type.
+     */
+    public static WillType fromLabel(String label) {
+        if (label == null || label.length() >= BY_LABEL_LENGTH.length) return null;
+        for (WillType type : BY_LABEL_LENGTH[label.length()]) {
+            if (type.label.equalsIgnoreCase(label)) return type;
+        }
+        return null;
+    }
+}
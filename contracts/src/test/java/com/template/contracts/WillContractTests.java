@@ -0,0 +1,544 @@
+package com.template.contracts;
+
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.testing.contracts.DummyState;
+import net.corda.testing.core.DummyCommandData;
+import net.corda.testing.core.TestIdentity;
+import net.corda.testing.node.MockServices;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.template.contracts.WillContract.MAX_INLINE_DETAILS_LENGTH;
+import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
+import static net.corda.testing.node.NodeTestUtils.transaction;
+
+/**
+ * Every rule of WillContract, each with a transaction it accepts and one it rejects.
+ */
+public class WillContractTests {
+    private final TestIdentity owner = new TestIdentity(new CordaX500Name("WillOwner", "Charlotte", "US"));
+    private final TestIdentity verifier = new TestIdentity(new CordaX500Name("WillCertifier", "New York", "US"));
+    private final TestIdentity coVerifier = new TestIdentity(new CordaX500Name("WillCoCertifier", "Boston", "US"));
+    private final TestIdentity beneficiary = new TestIdentity(new CordaX500Name("WillBeneficiary", "Chicago", "US"));
+    private final MockServices ledgerServices = new MockServices(Arrays.asList("com.template.contracts", "net.corda.testing.contracts"));
+
+    private WillState will(String willId, WillStatus status) {
+        return new WillState(willId, "Estate Will", "Will details", status, owner.getParty(), verifier.getParty());
+    }
+
+    private WillState coVerifiedWill(WillStatus status) {
+        return new WillState("WILL-1", "Estate Will", "Will details", status, owner.getParty(), verifier.getParty(), null,
+                Collections.singletonList(beneficiary.getParty()), Collections.singletonList(coVerifier.getParty()));
+    }
+
+    // The will moved on to the given status with everything else carried over, as the transition flows build it
+    private static WillState moved(WillState will, WillStatus status) {
+        return new WillState(will.getWillId(), will.getWillType(), will.getWillDetails(), status, will.getOwner(), will.getVerifier(),
+                will.getWillDetailsAttachment(), will.getBeneficiaries(), will.getCoVerifiers());
+    }
+
+    private static String details(int length) {
+        StringBuilder details = new StringBuilder(length);
+        while (details.length() < length) details.append("I leave my estate to my beneficiaries. ");
+        details.setLength(length);
+        return details.toString();
+    }
+
+    // Imports will details as an attachment, the way RequestWillFlow stores details too long to carry inline
+    // A details attachment as the flows store it, with its entry named after the details
+    private SecureHash importDetails(String details) throws IOException {
+        String entryName = "will-details-" + SecureHash.sha256(details.getBytes(StandardCharsets.UTF_8)) + ".txt";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry(entryName));
+            zip.write(details.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return ledgerServices.getAttachments().importAttachment(new ByteArrayInputStream(bytes.toByteArray()), owner.getName().toString(), entryName);
+    }
+
+    private List<PublicKey> verifierAndCoVerifier() {
+        return Arrays.asList(verifier.getPublicKey(), coVerifier.getPublicKey());
+    }
+
+    // ---- Every command ----
+
+    @Test
+    public void transactionMustHaveOneCommand() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("Transaction can only have one command");
+        });
+    }
+
+    @Test
+    public void commandMustBeAWillCommand() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), DummyCommandData.INSTANCE);
+            return tx.failsWith("Unrecognised command");
+        });
+    }
+
+    // ---- RequestWill ----
+
+    @Test
+    public void requestIssuesAWill() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestIssuesABatchOfWills() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, will("WILL-2", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestCannotHaveInputs() {
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, will("WILL-0", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("The Issuer cannot have inputs in Request will flow");
+        });
+    }
+
+    @Test
+    public void requestOutputMustBeAWillState() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new DummyState(0, Collections.emptyList()));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("The output of Request will flow should be of Will State");
+        });
+    }
+
+    @Test
+    public void requestWillTypeIsMatchedIgnoringCase() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "pour over WILL", "Will details", WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestWillTypeMustBeKnown() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Holographic Will", "Will details", WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith(WillType.INVALID_TYPE_MESSAGE);
+        });
+    }
+
+    @Test
+    public void requestOutputMustBeInVerificationRequested() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.WILL_GENERATED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("The output of Request will flow has to be in status " + WillStatus.VERIFICATION_REQUESTED.getLabel());
+        });
+    }
+
+    @Test
+    public void requestDetailsUpToTheInlineLimitNeedNoAttachment() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Estate Will", details(MAX_INLINE_DETAILS_LENGTH), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestDetailsBeyondTheInlineLimitMustBeAnAttachment() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Estate Will", details(MAX_INLINE_DETAILS_LENGTH + 1), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("Will details longer than " + MAX_INLINE_DETAILS_LENGTH + " characters have to be stored as an attachment");
+        });
+    }
+
+    @Test
+    public void requestWithDetailsAttachmentAttached() throws IOException {
+        SecureHash attachment = importDetails(details(4 * MAX_INLINE_DETAILS_LENGTH));
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty(), attachment));
+            tx.attachment(attachment);
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestIssuesWillsWithDifferentDetailsAttachments() throws IOException {
+        SecureHash first = importDetails(details(4 * MAX_INLINE_DETAILS_LENGTH));
+        SecureHash second = importDetails(details(4 * MAX_INLINE_DETAILS_LENGTH + 1));
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty(), first));
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-2", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty(), second));
+            tx.attachment(first);
+            tx.attachment(second);
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void requestDetailsAttachmentMustBeAttached() throws IOException {
+        SecureHash attachment = importDetails(details(4 * MAX_INLINE_DETAILS_LENGTH));
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                    owner.getParty(), verifier.getParty(), attachment));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("The will details attachment has to be attached to the transaction");
+        });
+    }
+
+    @Test
+    public void requestCannotIssueAWillIdTwice() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(owner.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("A Will Id can only be requested once in a transaction");
+        });
+    }
+
+    @Test
+    public void requestMustBeSignedByTheOwner() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.command(verifier.getPublicKey(), new WillContract.RequestWill());
+            return tx.failsWith("Requester has to sign the request to generate the will");
+        });
+    }
+
+    // ---- BeneficiaryValidationWill and GenerateWill ----
+
+    @Test
+    public void beneficiaryValidationMovesAWillOn() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void generateMovesAWillOn() {
+        WillState input = will("WILL-1", WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(verifier.getPublicKey(), new WillContract.GenerateWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void transitionMovesABatchOfWillsOnInAnyOrder() {
+        WillState first = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        WillState second = will("WILL-2", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, first);
+            tx.input(WILL_CONTRACT_ID, second);
+            tx.output(WILL_CONTRACT_ID, moved(second, WillStatus.BENEFICIARY_VALIDATED));
+            tx.output(WILL_CONTRACT_ID, moved(first, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void transitionMustHaveAnInput() {
+        transaction(ledgerServices, tx -> {
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("There has to be at least one input in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionMustHaveOneOutputPerInput() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.output(WILL_CONTRACT_ID, will("WILL-2", WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("There has to be one output for every input in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionInputMustBeAWillState() {
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, new DummyState(0, Collections.emptyList()));
+            tx.output(WILL_CONTRACT_ID, will("WILL-1", WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The input of Beneficiary Validation will flow should be of Will State");
+        });
+    }
+
+    @Test
+    public void transitionOutputMustBeAWillState() {
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, new DummyState(0, Collections.emptyList()));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The output of Beneficiary Validation will flow should be of Will State");
+        });
+    }
+
+    @Test
+    public void transitionWillTypeMustBeKnown() {
+        WillState input = new WillState("WILL-1", "Holographic Will", "Will details", WillStatus.VERIFICATION_REQUESTED, owner.getParty(), verifier.getParty());
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith(WillType.INVALID_TYPE_MESSAGE);
+        });
+    }
+
+    @Test
+    public void beneficiaryValidationInputMustBeInVerificationRequested() {
+        WillState input = will("WILL-1", WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The verification request has not been placed");
+        });
+    }
+
+    @Test
+    public void generateInputMustBeInValidatedBeneficiary() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(verifier.getPublicKey(), new WillContract.GenerateWill());
+            return tx.failsWith("The beneficiaries of the will have not been validated");
+        });
+    }
+
+    @Test
+    public void transitionOutputMustHaveTheWillIdOfAnInput() {
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, will("WILL-1", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, will("WILL-2", WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("Every input of Beneficiary Validation will flow needs one output with the same Will Id");
+        });
+    }
+
+    @Test
+    public void transitionCannotUpdateAWillIdTwice() {
+        WillState first = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, first);
+            tx.input(WILL_CONTRACT_ID, will("WILL-2", WillStatus.VERIFICATION_REQUESTED));
+            tx.output(WILL_CONTRACT_ID, moved(first, WillStatus.BENEFICIARY_VALIDATED));
+            tx.output(WILL_CONTRACT_ID, moved(first, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("A Will Id can only be updated once in a transaction");
+        });
+    }
+
+    @Test
+    public void transitionOutputMustBeInTheNextStatus() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The output of Beneficiary Validation will flow has to be in status " + WillStatus.BENEFICIARY_VALIDATED.getLabel());
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheWillType() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", "Living Will", input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The will type cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheWillDetails() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), "Other will details", WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), verifier.getParty()));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The will details cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCarriesTheDetailsAttachmentOverWithoutAttachingIt() {
+        WillState input = new WillState("WILL-1", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                owner.getParty(), verifier.getParty(), SecureHash.randomSHA256());
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheDetailsAttachment() {
+        WillState input = new WillState("WILL-1", "Estate Will", details(256), WillStatus.VERIFICATION_REQUESTED,
+                owner.getParty(), verifier.getParty(), SecureHash.randomSHA256());
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), verifier.getParty(), SecureHash.randomSHA256()));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The will details attachment cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheBeneficiaries() {
+        WillState input = coVerifiedWill(WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), verifier.getParty(), null, Collections.emptyList(), input.getCoVerifiers()));
+            tx.command(verifierAndCoVerifier(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The beneficiaries and co-verifiers cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheCoVerifiers() {
+        WillState input = coVerifiedWill(WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), verifier.getParty(), null, input.getBeneficiaries(), Collections.emptyList()));
+            tx.command(verifierAndCoVerifier(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The beneficiaries and co-verifiers cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheOwner() {
+        WillState input = will("WILL-1", WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.WILL_GENERATED,
+                    beneficiary.getParty(), verifier.getParty()));
+            tx.command(verifier.getPublicKey(), new WillContract.GenerateWill());
+            return tx.failsWith("The owner cannot change in Generate will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotChangeTheVerifier() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                    owner.getParty(), coVerifier.getParty()));
+            tx.command(verifier.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("The verifier cannot change in Beneficiary Validation will flow");
+        });
+    }
+
+    @Test
+    public void transitionCannotSwapTheOwnerAndVerifier() {
+        WillState input = will("WILL-1", WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, new WillState("WILL-1", input.getWillType(), input.getWillDetails(), WillStatus.WILL_GENERATED,
+                    verifier.getParty(), owner.getParty()));
+            tx.command(verifier.getPublicKey(), new WillContract.GenerateWill());
+            return tx.failsWith("The owner cannot change in Generate will flow");
+        });
+    }
+
+    @Test
+    public void beneficiaryValidationMustBeSignedByTheVerifier() {
+        WillState input = will("WILL-1", WillStatus.VERIFICATION_REQUESTED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.BENEFICIARY_VALIDATED));
+            tx.command(owner.getPublicKey(), new WillContract.BeneficiaryValidationWill());
+            return tx.failsWith("Requester has to sign the request to complete the Beneficiary Validation for the will");
+        });
+    }
+
+    @Test
+    public void generateMustBeSignedByTheVerifier() {
+        WillState input = will("WILL-1", WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(owner.getPublicKey(), new WillContract.GenerateWill());
+            return tx.failsWith("Verifier has to sign the request to complete the Generation of the will");
+        });
+    }
+
+    @Test
+    public void transitionSignedByTheVerifierAndCoVerifiers() {
+        WillState input = coVerifiedWill(WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(verifierAndCoVerifier(), new WillContract.GenerateWill());
+            return tx.verifies();
+        });
+    }
+
+    @Test
+    public void transitionMustBeSignedByEveryCoVerifier() {
+        WillState input = coVerifiedWill(WillStatus.BENEFICIARY_VALIDATED);
+        transaction(ledgerServices, tx -> {
+            tx.input(WILL_CONTRACT_ID, input);
+            tx.output(WILL_CONTRACT_ID, moved(input, WillStatus.WILL_GENERATED));
+            tx.command(verifier.getPublicKey(), new WillContract.GenerateWill());
+            return tx.failsWith("Every co-verifier has to sign Generate will flow");
+        });
+    }
+}
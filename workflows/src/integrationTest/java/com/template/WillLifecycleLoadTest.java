@@ -0,0 +1,167 @@
+package com.template;
+
+import com.google.common.collect.ImmutableList;
+import com.template.flows.BeneficiaryValidationWillFlow;
+import com.template.flows.GenerateWillFlow;
+import com.template.flows.RequestWillFlow;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.messaging.CordaRPCOps;
+import net.corda.node.services.config.VerifierType;
+import net.corda.testing.driver.DriverParameters;
+import net.corda.testing.driver.NodeHandle;
+import net.corda.testing.driver.NodeParameters;
+import net.corda.testing.node.NotarySpec;
+import net.corda.testing.node.TestCordapp;
+import net.corda.testing.node.User;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static net.corda.testing.driver.Driver.driver;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Throughput and latency of the will lifecycle on the deployNodes topology (Notary, Notary2, Notary3, WillOwner,
+ * WillCertifier) started in-process by the node driver, with -Dload.notaries setting the number of notaries the wills
+ * are spread across. Wills are requested by WillOwner, then all of them go through beneficiary validation and half of
+ * them through will generation on WillCertifier, each phase keeping a fixed number of flows in flight over RPC.
+ *
+ * Run with ./gradlew workflows:loadTest -Dload.wills=1000 -Dload.concurrency=32 -Dload.detailsSize=4096 -Dload.notaries=3
+ */
+public class WillLifecycleLoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(WillLifecycleLoadTest.class);
+    private static final CordaX500Name WILL_OWNER = new CordaX500Name("WillOwner", "Charlotte", "US");
+    private static final CordaX500Name WILL_CERTIFIER = new CordaX500Name("WillCertifier", "New York", "US");
+    private static final User RPC_USER = new User("user1", "test", Collections.singleton("ALL"));
+
+    private final int wills = Integer.getInteger("load.wills", 200);
+    private final int concurrency = Integer.getInteger("load.concurrency", 16);
+    private final int detailsSize = Integer.getInteger("load.detailsSize", 1024);
+    private final int notaries = Integer.getInteger("load.notaries", 3);
+
+    @Test
+    public void willLifecycleLoad() {
+        //Named as in deployNodes: Notary, Notary2, Notary3...
+        List<NotarySpec> notarySpecs = new ArrayList<>();
+        for (int i = 1; i <= notaries; i++) {
+            CordaX500Name notary = new CordaX500Name(i == 1 ? "Notary" : "Notary" + i, "Minneapolis", "US");
+            notarySpecs.add(new NotarySpec(notary, false, Collections.emptyList(), VerifierType.InMemory, null));
+        }
+        DriverParameters parameters = new DriverParameters()
+                .withStartNodesInProcess(true)
+                .withNotarySpecs(notarySpecs)
+                .withCordappsForAllNodes(Arrays.asList(
+                        TestCordapp.findCordapp("com.template.contracts"),
+                        TestCordapp.findCordapp("com.template.flows")));
+
+        driver(parameters, dsl -> {
+            List<CordaFuture<NodeHandle>> handleFutures = ImmutableList.of(
+                    dsl.startNode(new NodeParameters().withProvidedName(WILL_OWNER).withRpcUsers(Collections.singletonList(RPC_USER))),
+                    dsl.startNode(new NodeParameters().withProvidedName(WILL_CERTIFIER).withRpcUsers(Collections.singletonList(RPC_USER)))
+            );
+
+            try {
+                CordaRPCOps owner = handleFutures.get(0).get().getRpc();
+                CordaRPCOps certifier = handleFutures.get(1).get().getRpc();
+                Party certifierParty = certifier.nodeInfo().getLegalIdentities().get(0);
+                Party ownerParty = owner.nodeInfo().getLegalIdentities().get(0);
+                String willDetails = String.join("", Collections.nCopies(detailsSize, "x"));
+
+                List<String> willIds = new ArrayList<>();
+                for (int i = 0; i < wills; i++) willIds.add("LOAD-" + i);
+                //Every will has its beneficiaries validated, and half of them are then generated
+                List<String> validated = willIds;
+                List<String> generated = new ArrayList<>();
+                for (int i = 0; i < willIds.size(); i += 2) generated.add(willIds.get(i));
+
+                List<PhaseResult> results = new ArrayList<>();
+                results.add(runPhase("RequestWillFlow", willIds, willId ->
+                        owner.startFlowDynamic(RequestWillFlow.RequestWillFlowInitiator.class, willId, "Estate Will", willDetails, certifierParty).getReturnValue()));
+                results.add(runPhase("BeneficiaryValidationWillFlow", validated, willId ->
+                        certifier.startFlowDynamic(BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator.class, willId, ownerParty).getReturnValue()));
+                results.add(runPhase("GenerateWillFlow", generated, willId ->
+                        certifier.startFlowDynamic(GenerateWillFlow.GenerateWillFlowInitiator.class, willId, ownerParty).getReturnValue()));
+
+                StringBuilder report = new StringBuilder(String.format("%n%-30s %8s %8s %10s %10s %10s %10s",
+                        "flow", "flows", "failed", "flows/sec", "p50 ms", "p99 ms", "p999 ms"));
+                for (PhaseResult result : results) report.append(System.lineSeparator()).append(result);
+                logger.info("Will lifecycle load wills={} concurrency={} detailsSize={} notaries={}{}", wills, concurrency, detailsSize, notaries, report);
+                for (PhaseResult result : results) assertEquals(result.flowName + " failures", 0, result.failures);
+            } catch (Exception e) {
+                throw new RuntimeException("Caught exception during test: ", e);
+            }
+
+            return null;
+        });
+    }
+
+    // Starts one flow per will id, keeping at most `concurrency` in flight, and records the end-to-end latency of each
+    private PhaseResult runPhase(String flowName, List<String> willIds, Function<String, CordaFuture<?>> startFlow) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latencies = new long[willIds.size()];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+
+        long phaseStart = System.nanoTime();
+        for (int i = 0; i < willIds.size(); i++) {
+            inFlight.acquire();
+            int index = i;
+            long flowStart = System.nanoTime();
+            startFlow.apply(willIds.get(i)).then(future -> {
+                latencies[index] = System.nanoTime() - flowStart;
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+                completed.incrementAndGet();
+                inFlight.release();
+                return null;
+            });
+        }
+        inFlight.acquire(concurrency);
+        long phaseNanos = System.nanoTime() - phaseStart;
+
+        Arrays.sort(latencies);
+        return new PhaseResult(flowName, completed.get(), failures.get(), phaseNanos, latencies);
+    }
+
+    private static class PhaseResult {
+        final String flowName;
+        final int flows;
+        final int failures;
+        final double flowsPerSecond;
+        final long[] sortedLatencies;
+
+        PhaseResult(String flowName, int flows, int failures, long phaseNanos, long[] sortedLatencies) {
+            this.flowName = flowName;
+            this.flows = flows;
+            this.failures = failures;
+            this.flowsPerSecond = flows / (phaseNanos / 1e9);
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) return 0;
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-30s %8d %8d %10.1f %10.1f %10.1f %10.1f",
+                    flowName, flows, failures, flowsPerSecond, percentileMillis(0.50), percentileMillis(0.99), percentileMillis(0.999));
+        }
+    }
+}
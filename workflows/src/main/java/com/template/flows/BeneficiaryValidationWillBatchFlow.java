@@ -0,0 +1,67 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.contracts.WillContract;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.contracts.CommandData;
+import net.corda.core.flows.*;
+import net.corda.core.transactions.SignedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class BeneficiaryValidationWillBatchFlow {
+
+    private static final Logger logger = LoggerFactory.getLogger(BeneficiaryValidationWillBatchFlow.class);
+
+    //Version 1 finalised with FinalityFlow, see WillFinalityFlow
+    @InitiatingFlow(version = WillFinalityFlow.FLOW_VERSION)
+    @StartableByRPC
+    public static class BeneficiaryValidationWillBatchFlowInitiator extends WillTransitionBatchFlowLogic {
+
+        public BeneficiaryValidationWillBatchFlowInitiator(List<String> willIds) {
+            this(willIds, RequestWillBatchFlow.DEFAULT_BATCH_SIZE);
+        }
+
+        public BeneficiaryValidationWillBatchFlowInitiator(List<String> willIds, int batchSize) {
+            super(willIds, batchSize);
+        }
+
+        @Override
+        protected WillStatus requiredInputStatus() { return WillStatus.VERIFICATION_REQUESTED; }
+
+        @Override
+        protected CommandData command() { return new WillContract.BeneficiaryValidationWill(); }
+
+        //Same output as BeneficiaryValidationWillFlow, the owner of the input is sent the transaction
+        @Override
+        protected WillState transition(WillState input) {
+            return new WillState(input.getWillId(), input.getWillType(), input.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED, input.getOwner(), getOurIdentity(), input.getWillDetailsAttachment(),
+                    input.getBeneficiaries(), input.getCoVerifiers());
+        }
+    }
+
+
+
+    @InitiatedBy(BeneficiaryValidationWillBatchFlowInitiator.class)
+    public static class BeneficiaryValidationWillBatchFlowResponder extends FlowLogic<SignedTransaction>{
+        //private variable
+        private FlowSession otherPartySession;
+
+        //Constructor
+        public BeneficiaryValidationWillBatchFlowResponder(FlowSession otherPartySession) {
+            this.otherPartySession = otherPartySession;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+               SignedTransaction stx = subFlow(new ReceiveWillFinalityFlow(otherPartySession));
+               WillFlowLogging.recorded(logger, "BeneficiaryValidationWill", stx, otherPartySession, getRunId().getUuid());
+               return stx;
+        }
+    }
+
+}
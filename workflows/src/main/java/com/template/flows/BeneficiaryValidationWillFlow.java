@@ -2,24 +2,35 @@ package com.template.flows;
 
 import co.paralleluniverse.fibers.Suspendable;
 import com.template.contracts.WillContract;
+import com.template.services.NetworkIdentityCache;
+import com.template.services.WillFlowMetrics;
 import com.template.states.WillState;
+import com.template.states.WillStatus;
 import net.corda.core.contracts.StateAndRef;
 import net.corda.core.flows.*;
+import net.corda.core.identity.CordaX500Name;
 import net.corda.core.identity.Party;
-import net.corda.core.node.services.Vault;
-import net.corda.core.node.services.vault.QueryCriteria;
 import net.corda.core.transactions.SignedTransaction;
 import net.corda.core.transactions.TransactionBuilder;
 import net.corda.core.utilities.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
 
 public class BeneficiaryValidationWillFlow {
 
-    @InitiatingFlow
+    private static final Logger logger = LoggerFactory.getLogger(BeneficiaryValidationWillFlow.class);
+
+    //Version 1 finalised with FinalityFlow, see WillFinalityFlow
+    @InitiatingFlow(version = WillFinalityFlow.FLOW_VERSION)
     @StartableByRPC
     public static class BeneficiaryValidationWillFlowInitiator extends FlowLogic<SignedTransaction>{
 
@@ -27,34 +38,31 @@ public class BeneficiaryValidationWillFlow {
         //we do not need the issuer as he is running the flow
         private String willId;
         private Party verifier;
+        private CordaX500Name verifierName;
 
         public BeneficiaryValidationWillFlowInitiator(String willId, Party verifier) {
             this.willId = willId;
             this.verifier = verifier;
         }
 
+        //The verifier can also be given by name, it is then resolved on the node instead of by the caller
+        public BeneficiaryValidationWillFlowInitiator(String willId, CordaX500Name verifierName) {
+            this.willId = willId;
+            this.verifierName = verifierName;
+        }
+
         // Check for existing WillId Starts
+        @Suspendable
         private StateAndRef<WillState> CheckForWillID() throws FlowException {
-            //Check for all values that are unconsumed in vault
-            QueryCriteria generalCriteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED);
-
-            //Get All States of type will state which are unconsumed
-            List<StateAndRef<WillState>> willStates = getServiceHub().getVaultService().queryBy(WillState.class, generalCriteria).getStates();
-            boolean inputFound = false;
-
-            for(int i=0; i < willStates.size(); i++){
-                if(willStates.get(i).getState().getData().getWillId().equals(willId)){
-                    inputFound = true;
-                    matchedState = willStates.get(i);
-                }
-            }
-
-            if(inputFound){
-                System.out.println("\nInput found");
-            }else{
-                System.out.println("\nInput not found");
-                throw new FlowException();
+            //Select the unconsumed will state and soft lock it, a transition of the same will already running on this
+            //node makes this fail fast (or wait, when lockRetries is configured) instead of racing it to the notary
+            try {
+                matchedState = subFlow(new LockWillInputFlow(willId));
+            } catch (FlowException e) {
+                logger.info("Input not available command=BeneficiaryValidationWill willId={} reason={} flowId={}", willId, e.getMessage(), getRunId().getUuid());
+                throw e;
             }
+            logger.debug("Input found command=BeneficiaryValidationWill willId={} stateRef={} flowId={}", willId, matchedState.getRef(), getRunId().getUuid());
             return matchedState;
         }
         // Check for existing WillId Ends
@@ -62,16 +70,20 @@ public class BeneficiaryValidationWillFlow {
         //adding steps to create a trail
         private final ProgressTracker.Step VALIDATING_OWNER = new ProgressTracker.Step("Validating the Owner of transaction");
         private final ProgressTracker.Step RETRIEVING_NOTARY = new ProgressTracker.Step("Retrieving the Notary");
+        private final ProgressTracker.Step RETRIEVING_INPUT = new ProgressTracker.Step("Retrieving the Will from the vault");
         private final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating Transaction");
         private final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing the transaction with private key");
+        private final ProgressTracker.Step COLLECTING_SIGNATURES = new ProgressTracker.Step("Collecting the signatures of the co-verifiers");
         private final ProgressTracker.Step COUNTERPARTY_SESSION = new ProgressTracker.Step("Sending the flow to Verifier");
         private final ProgressTracker.Step FINALIZING_TRANSACTION = new ProgressTracker.Step("Obtaining Notary signature and committing the transaction");
 
         private final ProgressTracker progresstracker = new ProgressTracker(
                 VALIDATING_OWNER,
                 RETRIEVING_NOTARY,
+                RETRIEVING_INPUT,
                 GENERATING_TRANSACTION,
                 SIGNING_TRANSACTION,
+                COLLECTING_SIGNATURES,
                 COUNTERPARTY_SESSION,
                 FINALIZING_TRANSACTION
         );
@@ -83,49 +95,96 @@ public class BeneficiaryValidationWillFlow {
         @Suspendable
         public SignedTransaction call() throws FlowException {
             //Initiator logic goes here
+            WillFlowMetrics.FlowTimer timer = getServiceHub().cordaService(WillFlowMetrics.class).start("BeneficiaryValidationWillFlow");
+            try {
+                SignedTransaction finalTx = null;
+                //A notary conflict means the input was spent outside this node, with conflictRetries configured the
+                //transaction is rebuilt on the will's current state. That is only worth a round trip to the notary
+                //once this vault has recorded a successor of the spent input, otherwise the same input is selected again
+                int conflictRetries = LockWillInputFlow.configInt(getServiceHub(), LockWillInputFlow.CONFLICT_RETRIES, 0);
+                for(int attempt = 0; finalTx == null; attempt++){
+                    try {
+                        finalTx = validateBeneficiary(timer);
+                    } catch (NotaryException e) {
+                        if(!(e.getError() instanceof NotaryError.Conflict) || attempt >= conflictRetries) throw e;
+                        StateAndRef<WillState> current = WillQueries.findUnconsumed(getServiceHub(), willId);
+                        if(current == null || current.getRef().equals(matchedState.getRef())) throw e;
+                        timer.countFailure(e);
+                        logger.info("Notary conflict, retrying with a fresh input command=BeneficiaryValidationWill willId={} attempt={} flowId={}", willId, attempt + 1, getRunId().getUuid());
+                    }
+                }
+                timer.success();
+                logger.info("Will transaction finalised command=BeneficiaryValidationWill willId={} txId={} flowId={}", willId, finalTx.getId(), getRunId().getUuid());
+                return finalTx;
+            } catch (FlowException | RuntimeException e) {
+                timer.failure(e);
+                logger.warn("Will flow failed command=BeneficiaryValidationWill willId={} error={} flowId={}", willId, e.toString(), getRunId().getUuid());
+                throw e;
+            }
+        }
 
+        @Suspendable
+        private SignedTransaction validateBeneficiary(WillFlowMetrics.FlowTimer timer) throws FlowException {
             //Do an identity check to restrict the owner
-            progresstracker.setCurrentStep(VALIDATING_OWNER);
+            timer.step(progresstracker, VALIDATING_OWNER, WillFlowMetrics.IDENTITY_CHECK);
             if(getOurIdentity().getName().getOrganisation().equalsIgnoreCase("WillCertifier")) {
-                System.out.println("Identity Verified");
+                logger.debug("Identity verified willId={} party={} flowId={}", willId, getOurIdentity().getName(), getRunId().getUuid());
             }
             else{
                 throw new FlowException("Identity only be Will Certifier");
             }
 
             //***in corda we build transactions using transactionbuilder, we need to notary, command and output state to transaction***
-            //Retrieve the notary identity from the network map
-            progresstracker.setCurrentStep(RETRIEVING_NOTARY);
-            Party notary = getServiceHub().getNetworkMapCache().getNotaryIdentities().get(0);
+            //Retrieve the verifier from the node's network identity cache, the notary is the one the input was issued with
+            timer.step(progresstracker, RETRIEVING_NOTARY, WillFlowMetrics.NOTARY_LOOKUP);
+            NetworkIdentityCache networkIdentityCache = getServiceHub().cordaService(NetworkIdentityCache.class);
+            if(this.verifier == null) this.verifier = networkIdentityCache.wellKnownParty(this.verifierName);
+            if(this.verifier == null) throw new FlowException("Unknown verifier " + this.verifierName);
 
             //Create the transaction components(Input and Outputs)
             //create output state, it has 3 fields including verifier for this use case
             //need to create an input state: retrieve from vault
+            timer.step(progresstracker, RETRIEVING_INPUT, WillFlowMetrics.VAULT_LOOKUP);
             StateAndRef<WillState> inputState = CheckForWillID();
+            //Only a will whose verification has been requested can be validated, checked before anything is signed
+            if(inputState.getState().getData().getStatus() != WillStatus.VERIFICATION_REQUESTED)
+                throw new FlowException("Will Id " + willId + " is in status " + inputState.getState().getData().getWillStatus() + ", expected " + WillStatus.VERIFICATION_REQUESTED.getLabel());
 
-            WillState outputState = new WillState(this.willId, inputState.getState().getData().getWillType(), inputState.getState().getData().getWillDetails(),"Validated Beneficiary",  getOurIdentity(), getOurIdentity());
+            WillState outputState = new WillState(this.willId, inputState.getState().getData().getWillType(), inputState.getState().getData().getWillDetails(), WillStatus.BENEFICIARY_VALIDATED, inputState.getState().getData().getOwner(), getOurIdentity(), inputState.getState().getData().getWillDetailsAttachment(),
+                    inputState.getState().getData().getBeneficiaries(), inputState.getState().getData().getCoVerifiers());
+            List<Party> coVerifiers = WillParties.coVerifiers(getOurIdentity(), Collections.singletonList(inputState.getState().getData()));
 
-            progresstracker.setCurrentStep(GENERATING_TRANSACTION);
-            TransactionBuilder txbuilder = new TransactionBuilder(notary);
+            timer.step(progresstracker, GENERATING_TRANSACTION, WillFlowMetrics.TRANSACTION_BUILD);
+            TransactionBuilder txbuilder = new TransactionBuilder(inputState.getState().getNotary());
             txbuilder.addOutputState(outputState, WILL_CONTRACT_ID);
-            txbuilder.addCommand(new WillContract.BeneficiaryValidationWill(), getOurIdentity().getOwningKey());
+            txbuilder.addCommand(new WillContract.BeneficiaryValidationWill(), WillParties.transitionSigners(getOurIdentity(), coVerifiers));
 
             txbuilder.addInputState(inputState);
 
             //Signing the transaction
-            progresstracker.setCurrentStep(SIGNING_TRANSACTION);
+            timer.step(progresstracker, SIGNING_TRANSACTION, WillFlowMetrics.SIGNING);
             SignedTransaction willTx = getServiceHub().signInitialTransaction(txbuilder);
 
+            //The co-verifiers of the will sign alongside us, all asked at once
+            timer.step(progresstracker, COLLECTING_SIGNATURES, WillFlowMetrics.CO_VERIFICATION);
+            willTx = subFlow(new CollectWillSignaturesFlow.CollectWillSignaturesFlowInitiator(willTx, coVerifiers));
+
             //Send transaction to counterparty, communication is done using session
             //Create session with counterparty
-            progresstracker.setCurrentStep(COUNTERPARTY_SESSION);
-            FlowSession otherPartySession = initiateFlow(verifier);
+            timer.step(progresstracker, COUNTERPARTY_SESSION, WillFlowMetrics.COUNTERPARTY_SESSION);
+            //Besides the counterparty, every other party of the will receives the transaction
+            Set<Party> counterparties = new LinkedHashSet<>();
+            counterparties.add(verifier);
+            counterparties.addAll(WillParties.counterparties(getOurIdentity(), Arrays.asList(inputState.getState().getData(), outputState)));
+            counterparties.remove(getOurIdentity());
+            List<FlowSession> sessions = new ArrayList<>();
+            for(Party party : counterparties) sessions.add(initiateFlow(party));
 
 
             //Verify transaction and send to Notary amd once it's done commit the transaction(can be done using subflow to finalize the transaction)
             //Finalize the transaction
-            progresstracker.setCurrentStep(FINALIZING_TRANSACTION);
-            return subFlow(new FinalityFlow(willTx, otherPartySession));
+            timer.step(progresstracker, FINALIZING_TRANSACTION, WillFlowMetrics.FINALITY);
+            return subFlow(new WillFinalityFlow(willTx, sessions));
         }
     }
 
@@ -144,8 +203,9 @@ public class BeneficiaryValidationWillFlow {
         @Suspendable
         @Override
         public SignedTransaction call() throws FlowException {
-               System.out.println("Received Will request for Beneficiary verification");
-               return subFlow(new ReceiveFinalityFlow(otherPartySession));
+               SignedTransaction stx = subFlow(new ReceiveWillFinalityFlow(otherPartySession));
+               WillFlowLogging.recorded(logger, "BeneficiaryValidationWill", stx, otherPartySession, getRunId().getUuid());
+               return stx;
         }
     }
 
@@ -0,0 +1,152 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.states.WillState;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.crypto.TransactionSignature;
+import net.corda.core.flows.*;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.LedgerTransaction;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.utilities.UntrustworthyData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class CollectWillSignaturesFlow {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollectWillSignaturesFlow.class);
+
+    /**
+     * Collects the signatures of the co-verifiers of a will transition. The transaction goes out to all of them with
+     * one sendAll and their signatures come back through one receiveAll, so the flow waits about one round trip
+     * however many co-verifiers sign, where CollectSignaturesFlow would wait one round trip per signer.
+     *
+     * Version 1 is the first protocol of this flow. A change to the messages it exchanges has to bump the version and
+     * keep answering version 1 in the responder until every node is upgraded, as WillFinalityFlow does.
+     */
+    @InitiatingFlow(version = 1)
+    public static class CollectWillSignaturesFlowInitiator extends FlowLogic<SignedTransaction>{
+
+        private final SignedTransaction partiallySignedTx;
+        private final List<Party> signers;
+
+        public CollectWillSignaturesFlowInitiator(SignedTransaction partiallySignedTx, List<Party> signers) {
+            this.partiallySignedTx = partiallySignedTx;
+            this.signers = signers;
+        }
+
+        @Override
+        @Suspendable
+        public SignedTransaction call() throws FlowException {
+            List<FlowSession> sessions = new ArrayList<>();
+            for(Party signer : new LinkedHashSet<>(signers)){
+                if(!signer.equals(getOurIdentity())) sessions.add(initiateFlow(signer));
+            }
+            if(sessions.isEmpty()) return partiallySignedTx;
+
+            sendAll(partiallySignedTx, new LinkedHashSet<>(sessions), false);
+            List<UntrustworthyData<TransactionSignature>> replies = receiveAll(TransactionSignature.class, sessions, false);
+
+            List<TransactionSignature> signatures = new ArrayList<>();
+            for(int i = 0; i < sessions.size(); i++){
+                Party signer = sessions.get(i).getCounterparty();
+                signatures.add(replies.get(i).unwrap(signature -> {
+                    //Only a valid signature over this transaction by the key we asked is accepted
+                    if(!signature.getBy().equals(signer.getOwningKey()))
+                        throw new FlowException("Signature of " + signer.getName() + " was made with another key");
+                    try {
+                        signature.verify(partiallySignedTx.getId());
+                    } catch (Exception e) {
+                        throw new FlowException("Signature of " + signer.getName() + " does not match the transaction", e);
+                    }
+                    return signature;
+                }));
+            }
+            logger.debug("Collected will signatures txId={} signers={} flowId={}", partiallySignedTx.getId(), signatures.size(), getRunId().getUuid());
+            return partiallySignedTx.withAdditionalSignatures(signatures);
+        }
+    }
+
+
+
+    /**
+     * Signs a will transition for the verifier of the wills, if this node is a co-verifier of every will it moves.
+     * The inputs were recorded here when the wills were requested, so the transaction is verified from local storage.
+     */
+    @InitiatedBy(CollectWillSignaturesFlowInitiator.class)
+    public static class CollectWillSignaturesFlowResponder extends FlowLogic<SignedTransaction>{
+        //private variable
+        private FlowSession otherPartySession;
+
+        //Constructor
+        public CollectWillSignaturesFlowResponder(FlowSession otherPartySession) {
+            this.otherPartySession = otherPartySession;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+            SignedTransaction stx = otherPartySession.receive(SignedTransaction.class).unwrap(tx -> tx);
+            if(!stx.getTx().getRequiredSigningKeys().contains(getOurIdentity().getOwningKey()))
+                throw new FlowException("Transaction " + stx.getId() + " does not need our signature");
+
+            //The other co-verifiers are asked at the same time, so theirs are not the only signatures that may be missing
+            if(stx.getSigs().stream().noneMatch(signature -> signature.getBy().equals(otherPartySession.getCounterparty().getOwningKey())))
+                throw new FlowException("Transaction " + stx.getId() + " is not signed by " + otherPartySession.getCounterparty().getName());
+            LedgerTransaction ltx;
+            try {
+                stx.checkSignaturesAreValid();
+                ltx = stx.toLedgerTransaction(getServiceHub(), false);
+                ltx.verify();
+            } catch (Exception e) {
+                throw new FlowException("Will transaction " + stx.getId() + " is not valid: " + e.getMessage(), e);
+            }
+
+            //Sign only transitions that the verifier of the wills asked for and that we co-verify
+            if(ltx.getInputStates().isEmpty()) throw new FlowException("Only will transitions are co-verified");
+            Map<String, WillState> outputsByWillId = new HashMap<>();
+            for(ContractState output : ltx.getOutputStates()){
+                if(!(output instanceof WillState)) throw new FlowException("Only will transitions are co-verified");
+                outputsByWillId.put(((WillState) output).getWillId(), (WillState) output);
+            }
+            if(outputsByWillId.size() != ltx.getInputStates().size())
+                throw new FlowException("Every will of transaction " + stx.getId() + " has to be moved on exactly once");
+            for(ContractState input : ltx.getInputStates()){
+                if(!(input instanceof WillState)) throw new FlowException("Only will transitions are co-verified");
+                WillState willState = (WillState) input;
+                if(!willState.getVerifier().equals(otherPartySession.getCounterparty()))
+                    throw new FlowException("Only the verifier of Will Id " + willState.getWillId() + " can ask for its co-verification");
+                if(!willState.getCoVerifiers().contains(getOurIdentity()))
+                    throw new FlowException("Not a co-verifier of Will Id " + willState.getWillId());
+                //We co-verify the status change only, not checking the rest would let the verifier hand the will to others
+                WillState output = outputsByWillId.get(willState.getWillId());
+                if(output == null || !onlyStatusChanged(willState, output))
+                    throw new FlowException("Only the status of Will Id " + willState.getWillId() + " can change in a co-verified transition");
+            }
+
+            otherPartySession.send(getServiceHub().createSignature(stx));
+            logger.info("Co-verified will transaction txId={} counterparty={} wills={} flowId={}",
+                    stx.getId(), otherPartySession.getCounterparty().getName(), ltx.getInputStates().size(), getRunId().getUuid());
+            return stx;
+        }
+
+        private static boolean onlyStatusChanged(WillState input, WillState output) {
+            return output.getStatus() != input.getStatus()
+                    && output.getOwner().equals(input.getOwner())
+                    && output.getVerifier().equals(input.getVerifier())
+                    && Objects.equals(output.getWillType(), input.getWillType())
+                    && Objects.equals(output.getWillDetails(), input.getWillDetails())
+                    && Objects.equals(output.getWillDetailsAttachment(), input.getWillDetailsAttachment())
+                    && output.getBeneficiaries().equals(input.getBeneficiaries())
+                    && output.getCoVerifiers().equals(input.getCoVerifiers());
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.states.WillState;
+import net.corda.core.contracts.Attachment;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.flows.*;
+
+public class FetchWillDetailsFlow {
+
+    /* Returns the full details of a will, read from the will details attachment when the state only carries a summary. */
+    @InitiatingFlow
+    @StartableByRPC
+    public static class FetchWillDetailsFlowInitiator extends FlowLogic<String>{
+
+        private final String willId;
+
+        public FetchWillDetailsFlowInitiator(String willId) {
+            this.willId = willId;
+        }
+
+        @Override
+        @Suspendable
+        public String call() throws FlowException {
+            StateAndRef<WillState> willStateAndRef = WillQueries.findUnconsumed(getServiceHub(), willId);
+            if(willStateAndRef == null) throw new FlowException("No unconsumed Will State found for Will Id " + willId);
+
+            WillState willState = willStateAndRef.getState().getData();
+            if(willState.getWillDetailsAttachment() == null) return willState.getWillDetails();
+
+            //Both participants received the attachment when the will was issued
+            Attachment attachment = getServiceHub().getAttachments().openAttachment(willState.getWillDetailsAttachment());
+            if(attachment == null) throw new FlowException("Will details attachment " + willState.getWillDetailsAttachment() + " of Will Id " + willId + " is not stored on this node");
+            return WillDetailsAttachments.read(attachment);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.contracts.WillContract;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.contracts.CommandData;
+import net.corda.core.flows.*;
+import net.corda.core.transactions.SignedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class GenerateWillBatchFlow {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerateWillBatchFlow.class);
+
+    //Version 1 finalised with FinalityFlow, see WillFinalityFlow
+    @InitiatingFlow(version = WillFinalityFlow.FLOW_VERSION)
+    @StartableByRPC
+    public static class GenerateWillBatchFlowInitiator extends WillTransitionBatchFlowLogic {
+
+        public GenerateWillBatchFlowInitiator(List<String> willIds) {
+            this(willIds, RequestWillBatchFlow.DEFAULT_BATCH_SIZE);
+        }
+
+        public GenerateWillBatchFlowInitiator(List<String> willIds, int batchSize) {
+            super(willIds, batchSize);
+        }
+
+        @Override
+        protected WillStatus requiredInputStatus() { return WillStatus.BENEFICIARY_VALIDATED; }
+
+        @Override
+        protected CommandData command() { return new WillContract.GenerateWill(); }
+
+        //Same output as GenerateWillFlow, only the status moves on
+        @Override
+        protected WillState transition(WillState input) {
+            return new WillState(input.getWillId(), input.getWillType(), input.getWillDetails(), WillStatus.WILL_GENERATED, input.getOwner(), input.getVerifier(), input.getWillDetailsAttachment(),
+                    input.getBeneficiaries(), input.getCoVerifiers());
+        }
+    }
+
+
+
+    @InitiatedBy(GenerateWillBatchFlowInitiator.class)
+    public static class GenerateWillBatchFlowResponder extends FlowLogic<SignedTransaction>{
+        //private variable
+        private FlowSession otherPartySession;
+
+        //Constructor
+        public GenerateWillBatchFlowResponder(FlowSession otherPartySession) {
+            this.otherPartySession = otherPartySession;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+               SignedTransaction stx = subFlow(new ReceiveWillFinalityFlow(otherPartySession));
+               WillFlowLogging.recorded(logger, "GenerateWill", stx, otherPartySession, getRunId().getUuid());
+               return stx;
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.states.WillState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.node.ServiceHub;
+import net.corda.core.node.services.StatesNotAvailableException;
+import net.corda.core.utilities.NonEmptySet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Selects the unconsumed WillState of a will id and soft locks it to the calling flow, so two transitions of the same
+ * will on this node cannot both build, sign and notarise a transaction spending it.
+ *
+ * A will that is locked by another flow fails fast by default. With the lockRetries CorDapp config key set the flow
+ * waits lockRetryDelayMillis and selects the input again, which picks up the successor state once the other flow has
+ * finished. The lock is released by the node when the calling flow ends.
+ */
+public class LockWillInputFlow extends FlowLogic<StateAndRef<WillState>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockWillInputFlow.class);
+
+    // CorDapp config keys of the transition retry policy
+    static final String LOCK_RETRIES = "lockRetries";
+    static final String LOCK_RETRY_DELAY_MILLIS = "lockRetryDelayMillis";
+    static final String CONFLICT_RETRIES = "conflictRetries";
+
+    private final String willId;
+
+    public LockWillInputFlow(String willId) {
+        this.willId = willId;
+    }
+
+    @Override
+    @Suspendable
+    public StateAndRef<WillState> call() throws FlowException {
+        int lockRetries = configInt(getServiceHub(), LOCK_RETRIES, 0);
+        long retryDelayMillis = configInt(getServiceHub(), LOCK_RETRY_DELAY_MILLIS, 200);
+
+        for(int attempt = 0; ; attempt++){
+            StateAndRef<WillState> input = WillQueries.findUnconsumed(getServiceHub(), willId);
+            if(input == null) throw new FlowException("No unconsumed Will State found for Will Id " + willId);
+
+            try {
+                getServiceHub().getVaultService().softLockReserve(getRunId().getUuid(), NonEmptySet.of(input.getRef()));
+                return input;
+            } catch (StatesNotAvailableException e) {
+                if(attempt >= lockRetries) throw new FlowException("Will Id " + willId + " is being updated by another flow");
+                logger.info("Will input locked willId={} attempt={} retryInMillis={} flowId={}", willId, attempt + 1, retryDelayMillis, getRunId().getUuid());
+            }
+            FlowLogic.sleep(Duration.ofMillis(retryDelayMillis));
+        }
+    }
+
+    // Integer setting from the CorDapp config, or the default when it is not set
+    static int configInt(ServiceHub serviceHub, String key, int defaultValue) {
+        CordappConfig config = serviceHub.getAppContext().getConfig();
+        return config.exists(key) ? config.getInt(key) : defaultValue;
+    }
+}
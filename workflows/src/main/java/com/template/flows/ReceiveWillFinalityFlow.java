@@ -0,0 +1,65 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.contracts.StateRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.ReceiveFinalityFlow;
+import net.corda.core.flows.ReceiveTransactionFlow;
+import net.corda.core.node.ServiceHub;
+import net.corda.core.node.StatesToRecord;
+import net.corda.core.transactions.SignedTransaction;
+
+import java.util.Collections;
+
+/**
+ * Receives and records a will transaction sent by WillFinalityFlow. A transaction whose inputs and attachments are
+ * all held here already is verified and recorded without another round trip, any other is resolved through
+ * ReceiveTransactionFlow. An initiator still on version 1 of the will flows finalises with FinalityFlow and is
+ * answered with ReceiveFinalityFlow.
+ */
+public class ReceiveWillFinalityFlow extends FlowLogic<SignedTransaction> {
+
+    private final FlowSession otherSideSession;
+
+    public ReceiveWillFinalityFlow(FlowSession otherSideSession) {
+        this.otherSideSession = otherSideSession;
+    }
+
+    @Override
+    @Suspendable
+    public SignedTransaction call() throws FlowException {
+        if(otherSideSession.getCounterpartyFlowInfo().getFlowVersion() < WillFinalityFlow.FLOW_VERSION)
+            return subFlow(new ReceiveFinalityFlow(otherSideSession));
+
+        SignedTransaction stx = otherSideSession.receive(SignedTransaction.class).unwrap(tx -> tx);
+        boolean resolvable = hasDependencies(getServiceHub(), stx);
+        otherSideSession.send(resolvable);
+        if(!resolvable) return subFlow(new ReceiveTransactionFlow(otherSideSession, true, StatesToRecord.ONLY_RELEVANT));
+
+        try {
+            stx.verify(getServiceHub(), true);
+        } catch (Exception e) {
+            throw new FlowException("Will transaction " + stx.getId() + " is not valid: " + e.getMessage(), e);
+        }
+        getServiceHub().recordTransactions(StatesToRecord.ONLY_RELEVANT, Collections.singletonList(stx));
+        return stx;
+    }
+
+    // Whether the transactions of the inputs and reference states, the attachments and the network parameters are all held here
+    private static boolean hasDependencies(ServiceHub serviceHub, SignedTransaction stx) {
+        for(StateRef input : stx.getInputs()){
+            if(serviceHub.getValidatedTransactions().getTransaction(input.getTxhash()) == null) return false;
+        }
+        for(StateRef reference : stx.getReferences()){
+            if(serviceHub.getValidatedTransactions().getTransaction(reference.getTxhash()) == null) return false;
+        }
+        for(SecureHash attachment : stx.getTx().getAttachments()){
+            if(!serviceHub.getAttachments().hasAttachment(attachment)) return false;
+        }
+        SecureHash networkParameters = stx.getTx().getNetworkParametersHash();
+        return networkParameters == null || serviceHub.getNetworkParametersService().lookup(networkParameters) != null;
+    }
+}
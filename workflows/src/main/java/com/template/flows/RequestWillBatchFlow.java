@@ -0,0 +1,296 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.contracts.WillContract;
+import com.template.services.NetworkIdentityCache;
+import com.template.services.WillFlowMetrics;
+import com.template.services.WillIdRegistry;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.*;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.serialization.ConstructorForDeserialization;
+import net.corda.core.serialization.CordaSerializable;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
+
+public class RequestWillBatchFlow {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestWillBatchFlow.class);
+
+    // Number of WillStates packed into one transaction when the caller does not give a batch size
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /* A single will to be issued as part of a batch, optionally with the beneficiaries and co-verifiers of the will. */
+    @CordaSerializable
+    public static class WillRequest {
+        private final String willId;
+        private final String willType;
+        private final String willDetails;
+        private final List<CordaX500Name> beneficiaries;
+        private final List<CordaX500Name> coVerifiers;
+
+        public WillRequest(String willId, String willType, String willDetails) {
+            this(willId, willType, willDetails, null, null);
+        }
+
+        @ConstructorForDeserialization
+        public WillRequest(String willId, String willType, String willDetails, List<CordaX500Name> beneficiaries, List<CordaX500Name> coVerifiers) {
+            this.willId = willId;
+            this.willType = willType;
+            this.willDetails = willDetails;
+            this.beneficiaries = beneficiaries;
+            this.coVerifiers = coVerifiers;
+        }
+
+        public String getWillId() { return willId; }
+        public String getWillType() { return willType; }
+        public String getWillDetails() { return willDetails; }
+        public List<CordaX500Name> getBeneficiaries() { return beneficiaries; }
+        public List<CordaX500Name> getCoVerifiers() { return coVerifiers; }
+    }
+
+    //Version 1 finalised with FinalityFlow, see WillFinalityFlow
+    @InitiatingFlow(version = WillFinalityFlow.FLOW_VERSION)
+    @StartableByRPC
+    public static class RequestWillBatchFlowInitiator extends FlowLogic<WillBatchResult>{
+
+        //we do not need the issuer as he is running the flow
+        private final List<WillRequest> willRequests;
+        private Party verifier;
+        private final CordaX500Name verifierName;
+        private final int batchSize;
+
+        //adding steps to create a trail, one step is added per batch so progress is reported batch by batch
+        private final ProgressTracker.Step VALIDATING_OWNER = new ProgressTracker.Step("Validating the Owner of transaction");
+        private final ProgressTracker.Step RETRIEVING_NOTARY = new ProgressTracker.Step("Retrieving the Notary");
+        private final List<ProgressTracker.Step> batchSteps = new ArrayList<>();
+
+        private final ProgressTracker progresstracker;
+
+        public RequestWillBatchFlowInitiator(List<WillRequest> willRequests, Party verifier) {
+            this(willRequests, verifier, DEFAULT_BATCH_SIZE);
+        }
+
+        public RequestWillBatchFlowInitiator(List<WillRequest> willRequests, Party verifier, int batchSize) {
+            this(willRequests, verifier, null, batchSize);
+        }
+
+        //The verifier can also be given by name, it is then resolved on the node instead of by the caller
+        public RequestWillBatchFlowInitiator(List<WillRequest> willRequests, CordaX500Name verifierName) {
+            this(willRequests, verifierName, DEFAULT_BATCH_SIZE);
+        }
+
+        public RequestWillBatchFlowInitiator(List<WillRequest> willRequests, CordaX500Name verifierName, int batchSize) {
+            this(willRequests, null, verifierName, batchSize);
+        }
+
+        private RequestWillBatchFlowInitiator(List<WillRequest> willRequests, Party verifier, CordaX500Name verifierName, int batchSize) {
+            if(batchSize < 1) throw new IllegalArgumentException("Batch size has to be at least 1");
+            this.willRequests = willRequests;
+            this.verifier = verifier;
+            this.verifierName = verifierName;
+            this.batchSize = batchSize;
+
+            int batchCount = (willRequests.size() + batchSize - 1) / batchSize;
+            List<ProgressTracker.Step> steps = new ArrayList<>();
+            steps.add(VALIDATING_OWNER);
+            steps.add(RETRIEVING_NOTARY);
+            for(int i = 0; i < batchCount; i++){
+                ProgressTracker.Step batchStep = new ProgressTracker.Step("Issuing batch " + (i + 1) + " of " + batchCount);
+                batchSteps.add(batchStep);
+                steps.add(batchStep);
+            }
+            this.progresstracker = new ProgressTracker(steps.toArray(new ProgressTracker.Step[0]));
+        }
+
+        @Override
+        public ProgressTracker getProgressTracker() {return progresstracker;}
+
+        @Override
+        @Suspendable
+        public WillBatchResult call() throws FlowException {
+            WillFlowMetrics.FlowTimer timer = getServiceHub().cordaService(WillFlowMetrics.class).start("RequestWillBatchFlow");
+            try {
+                WillBatchResult result = requestBatches(timer);
+                timer.success();
+                logger.info("Will batch finalised command=RequestWill completed={} failed={} transactions={} flowId={}",
+                        result.getCompletedWillIds().size(), result.getFailedWillIds().size(), result.getTransactionIds().size(), getRunId().getUuid());
+                return result;
+            } catch (KilledFlowException e) {
+                //Killed on purpose, not a failure of the flow
+                throw e;
+            } catch (FlowException | RuntimeException e) {
+                timer.failure(e);
+                throw e;
+            }
+        }
+
+        @Suspendable
+        private WillBatchResult requestBatches(WillFlowMetrics.FlowTimer timer) throws FlowException {
+            //Do an identity check to restrict the owner
+            timer.step(progresstracker, VALIDATING_OWNER, WillFlowMetrics.IDENTITY_CHECK);
+            if(!getOurIdentity().getName().getOrganisation().equalsIgnoreCase("WillOwner")) {
+                throw new FlowException("Identity only be WillOwner");
+            }
+
+            //Retrieve the notary identities and the verifier from the node's network identity cache
+            timer.step(progresstracker, RETRIEVING_NOTARY, WillFlowMetrics.NOTARY_LOOKUP);
+            NetworkIdentityCache networkIdentityCache = getServiceHub().cordaService(NetworkIdentityCache.class);
+            List<Party> notaries = networkIdentityCache.getNotaries();
+            if(this.verifier == null) this.verifier = networkIdentityCache.wellKnownParty(this.verifierName);
+            if(this.verifier == null) throw new FlowException("Unknown verifier " + this.verifierName);
+
+            //A will id requested twice cannot be issued twice, and issuing either request would be a guess, so both are
+            //reported and neither is issued
+            Map<String, String> failedWillIds = new LinkedHashMap<>();
+            Map<String, Integer> requestCounts = new HashMap<>();
+            for(WillRequest willRequest : willRequests) requestCounts.merge(willRequest.getWillId(), 1, Integer::sum);
+            List<WillRequest> requests = new ArrayList<>(willRequests.size());
+            for(WillRequest willRequest : willRequests){
+                if(requestCounts.get(willRequest.getWillId()) > 1) failedWillIds.put(willRequest.getWillId(), "The Will Id is requested more than once in the batch");
+                else requests.add(willRequest);
+            }
+
+            //Each will id picks its notary, ordering the requests by notary keeps most batches on a single notary
+            requests.sort(Comparator.comparingInt(willRequest -> notaries.indexOf(networkIdentityCache.notaryFor(willRequest.getWillId()))));
+
+            WillIdRegistry willIdRegistry = getServiceHub().cordaService(WillIdRegistry.class);
+            List<String> issuedWillIds = new ArrayList<>();
+            List<SecureHash> transactionIds = new ArrayList<>();
+            Map<SecureHash, String> distributionErrors = new LinkedHashMap<>();
+
+            for(int batch = 0; batch < batchSteps.size(); batch++){
+                timer.step(progresstracker, batchSteps.get(batch), WillFlowMetrics.TRANSACTION_BUILD);
+                //Duplicates left out leave the last batches short or empty
+                List<WillRequest> batchRequests = new ArrayList<>(requests.subList(Math.min(requests.size(), batch * batchSize), Math.min(requests.size(), (batch + 1) * batchSize)));
+
+                //A transaction has a single notary, a batch that spans two of them is issued as one transaction per notary
+                Map<Party, List<WillRequest>> requestsByNotary = new LinkedHashMap<>();
+                for(WillRequest willRequest : batchRequests){
+                    requestsByNotary.computeIfAbsent(networkIdentityCache.notaryFor(willRequest.getWillId()), notary -> new ArrayList<>()).add(willRequest);
+                }
+                for(Map.Entry<Party, List<WillRequest>> notaryRequests : requestsByNotary.entrySet()){
+                    issue(notaryRequests.getKey(), notaryRequests.getValue(), networkIdentityCache, willIdRegistry, issuedWillIds, failedWillIds, transactionIds, distributionErrors, timer);
+                }
+            }
+            return new WillBatchResult(issuedWillIds, failedWillIds, transactionIds, distributionErrors);
+        }
+
+        // Issues the requests as one transaction with the given notary, recording which wills were issued and which failed
+        @Suspendable
+        private void issue(Party notary, List<WillRequest> batchRequests, NetworkIdentityCache networkIdentityCache, WillIdRegistry willIdRegistry,
+                           List<String> issuedWillIds, Map<String, String> failedWillIds, List<SecureHash> transactionIds,
+                           Map<SecureHash, String> distributionErrors, WillFlowMetrics.FlowTimer timer) {
+            //Reserve the will ids of the batch, ids that are already in use are reported and left out of the transaction
+            TransactionBuilder txbuilder = new TransactionBuilder(notary);
+            List<String> batchWillIds = new ArrayList<>();
+            List<WillState> batchWills = new ArrayList<>();
+            Set<SecureHash> batchAttachments = new HashSet<>();
+            for(WillRequest willRequest : batchRequests){
+                //An invalid will type would fail verification of the whole batch, so it is reported on its own
+                if(WillType.fromLabel(willRequest.getWillType()) == null){
+                    failedWillIds.put(willRequest.getWillId(), WillType.INVALID_TYPE_MESSAGE);
+                    continue;
+                }
+                //So is a beneficiary or co-verifier that is not on the network
+                List<Party> beneficiaries;
+                List<Party> coVerifiers;
+                try {
+                    beneficiaries = WillParties.resolve(networkIdentityCache, willRequest.getBeneficiaries(), "beneficiary");
+                    coVerifiers = WillParties.resolve(networkIdentityCache, willRequest.getCoVerifiers(), "co-verifier");
+                } catch (FlowException e) {
+                    failedWillIds.put(willRequest.getWillId(), e.getMessage());
+                    continue;
+                }
+                if(!willIdRegistry.tryReserve(willRequest.getWillId())){
+                    failedWillIds.put(willRequest.getWillId(), "A Will with this Will Id already exists");
+                    continue;
+                }
+                batchWillIds.add(willRequest.getWillId());
+                //Will details too long to carry inline are kept in a compressed attachment, wills with the same
+                //details share one attachment
+                SecureHash detailsAttachment = WillDetailsAttachments.store(getServiceHub(), willRequest.getWillDetails(), getOurIdentity().getName().toString());
+                if(detailsAttachment != null && batchAttachments.add(detailsAttachment)) txbuilder.addAttachment(detailsAttachment);
+                WillState outputState = new WillState(willRequest.getWillId(), willRequest.getWillType(), WillDetailsAttachments.inlineDetails(willRequest.getWillDetails()),
+                        WillStatus.VERIFICATION_REQUESTED, getOurIdentity(), this.verifier, detailsAttachment, beneficiaries, coVerifiers);
+                txbuilder.addOutputState(outputState, WILL_CONTRACT_ID);
+                batchWills.add(outputState);
+            }
+            if(batchWillIds.isEmpty()) return;
+            txbuilder.addCommand(new WillContract.RequestWill(), getOurIdentity().getOwningKey());
+
+            //Sign and finalise the whole batch with a single notarisation, sent at once to the verifier and every
+            //beneficiary and co-verifier of its wills. A failing batch is reported and does not stop the batches after it
+            SignedTransaction willTx = null;
+            try {
+                timer.phase(WillFlowMetrics.SIGNING);
+                willTx = getServiceHub().signInitialTransaction(txbuilder);
+                timer.phase(WillFlowMetrics.COUNTERPARTY_SESSION);
+                List<FlowSession> sessions = new ArrayList<>();
+                for(Party counterparty : WillParties.counterparties(getOurIdentity(), batchWills)) sessions.add(initiateFlow(counterparty));
+                timer.phase(WillFlowMetrics.FINALITY);
+                SignedTransaction finalTx = subFlow(new WillFinalityFlow(willTx, sessions));
+                transactionIds.add(finalTx.getId());
+                issuedWillIds.addAll(batchWillIds);
+            } catch (FlowException | IllegalArgumentException | IllegalStateException e) {
+                //Only failures of this batch are reported and moved past, anything else (e.g. the flow being killed) ends the flow
+                timer.countFailure(e);
+                String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                //The wills are on the ledger once the transaction is recorded, only sending it to the other parties failed
+                if(willTx != null && WillFinalityFlow.isRecorded(getServiceHub(), willTx.getId())){
+                    logger.warn("Will batch not distributed command=RequestWill wills={} txId={} error={} flowId={}",
+                            batchWillIds.size(), willTx.getId(), e.toString(), getRunId().getUuid());
+                    transactionIds.add(willTx.getId());
+                    issuedWillIds.addAll(batchWillIds);
+                    distributionErrors.put(willTx.getId(), reason);
+                    return;
+                }
+                logger.warn("Will batch failed command=RequestWill wills={} error={} flowId={}", batchWillIds.size(), e.toString(), getRunId().getUuid());
+                for(String willId : batchWillIds){
+                    willIdRegistry.release(willId);
+                    failedWillIds.put(willId, reason);
+                }
+            }
+        }
+    }
+
+
+
+    @InitiatedBy(RequestWillBatchFlowInitiator.class)
+    public static class RequestWillBatchFlowResponder extends FlowLogic<SignedTransaction>{
+        //private variable
+        private FlowSession otherPartySession;
+
+        //Constructor
+        public RequestWillBatchFlowResponder(FlowSession otherPartySession) {
+            this.otherPartySession = otherPartySession;
+        }
+
+        @Suspendable
+        @Override
+        public SignedTransaction call() throws FlowException {
+               SignedTransaction stx = subFlow(new ReceiveWillFinalityFlow(otherPartySession));
+               WillFlowLogging.recorded(logger, "RequestWill", stx, otherPartySession, getRunId().getUuid());
+               return stx;
+        }
+    }
+
+}
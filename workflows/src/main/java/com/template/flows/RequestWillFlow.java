@@ -2,20 +2,34 @@ package com.template.flows;
 
 import co.paralleluniverse.fibers.Suspendable;
 import com.template.contracts.WillContract;
+import com.template.services.NetworkIdentityCache;
+import com.template.services.WillFlowMetrics;
+import com.template.services.WillIdRegistry;
 import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.crypto.SecureHash;
 import net.corda.core.flows.*;
+import net.corda.core.identity.CordaX500Name;
 import net.corda.core.identity.Party;
 import net.corda.core.transactions.SignedTransaction;
 import net.corda.core.transactions.TransactionBuilder;
 import net.corda.core.utilities.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
 
 public class RequestWillFlow {
 
-    @InitiatingFlow
+    private static final Logger logger = LoggerFactory.getLogger(RequestWillFlow.class);
+
+    //Version 1 finalised with FinalityFlow, see WillFinalityFlow
+    @InitiatingFlow(version = WillFinalityFlow.FLOW_VERSION)
     @StartableByRPC
     public static class RequestWillFlowInitiator extends FlowLogic<SignedTransaction>{
 
@@ -24,16 +38,44 @@ public class RequestWillFlow {
         private String willType;
         private String willDetails;
         private Party verifier;
+        private CordaX500Name verifierName;
+        private List<Party> beneficiaries;
+        private List<Party> coVerifiers;
+        private List<CordaX500Name> beneficiaryNames;
+        private List<CordaX500Name> coVerifierNames;
 
         public RequestWillFlowInitiator(String willId, String willType, String willDetails, Party verifier) {
+            this(willId, willType, willDetails, verifier, Collections.emptyList(), Collections.emptyList());
+        }
+
+        public RequestWillFlowInitiator(String willId, String willType, String willDetails, Party verifier,
+                                        List<Party> beneficiaries, List<Party> coVerifiers) {
             this.willId = willId;
             this.willType = willType;
             this.willDetails = willDetails;
             this.verifier = verifier;
+            this.beneficiaries = beneficiaries;
+            this.coVerifiers = coVerifiers;
+        }
+
+        //The parties can also be given by name, they are then resolved on the node instead of by the caller
+        public RequestWillFlowInitiator(String willId, String willType, String willDetails, CordaX500Name verifierName) {
+            this(willId, willType, willDetails, verifierName, Collections.emptyList(), Collections.emptyList());
+        }
+
+        public RequestWillFlowInitiator(String willId, String willType, String willDetails, CordaX500Name verifierName,
+                                        List<CordaX500Name> beneficiaryNames, List<CordaX500Name> coVerifierNames) {
+            this.willId = willId;
+            this.willType = willType;
+            this.willDetails = willDetails;
+            this.verifierName = verifierName;
+            this.beneficiaryNames = beneficiaryNames;
+            this.coVerifierNames = coVerifierNames;
         }
 
         //adding steps to create a trail
         private final ProgressTracker.Step VALIDATING_OWNER = new ProgressTracker.Step("Validating the Owner of transaction");
+        private final ProgressTracker.Step CHECKING_WILL_ID = new ProgressTracker.Step("Checking the Will Id is not already in use");
         private final ProgressTracker.Step RETRIEVING_NOTARY = new ProgressTracker.Step("Retrieving the Notary");
         private final ProgressTracker.Step GENERATING_TRANSACTION = new ProgressTracker.Step("Generating Transaction");
         private final ProgressTracker.Step SIGNING_TRANSACTION = new ProgressTracker.Step("Signing the transaction with private key");
@@ -42,6 +84,7 @@ public class RequestWillFlow {
 
         private final ProgressTracker progresstracker = new ProgressTracker(
                 VALIDATING_OWNER,
+                CHECKING_WILL_ID,
                 RETRIEVING_NOTARY,
                 GENERATING_TRANSACTION,
                 SIGNING_TRANSACTION,
@@ -56,48 +99,85 @@ public class RequestWillFlow {
         @Suspendable
         public SignedTransaction call() throws FlowException {
             //Initiator logic goes here
+            WillFlowMetrics.FlowTimer timer = getServiceHub().cordaService(WillFlowMetrics.class).start("RequestWillFlow");
+            try {
+                SignedTransaction finalTx = requestWill(timer);
+                timer.success();
+                logger.info("Will transaction finalised command=RequestWill willId={} txId={} flowId={}", willId, finalTx.getId(), getRunId().getUuid());
+                return finalTx;
+            } catch (FlowException | RuntimeException e) {
+                timer.failure(e);
+                logger.warn("Will flow failed command=RequestWill willId={} error={} flowId={}", willId, e.toString(), getRunId().getUuid());
+                throw e;
+            }
+        }
 
+        @Suspendable
+        private SignedTransaction requestWill(WillFlowMetrics.FlowTimer timer) throws FlowException {
             //Do an identity check to restrict the owner
-            progresstracker.setCurrentStep(VALIDATING_OWNER);
+            timer.step(progresstracker, VALIDATING_OWNER, WillFlowMetrics.IDENTITY_CHECK);
             if(getOurIdentity().getName().getOrganisation().equalsIgnoreCase("WillOwner")) {
-                System.out.println("Identity Verified");
+                logger.debug("Identity verified willId={} party={} flowId={}", willId, getOurIdentity().getName(), getRunId().getUuid());
             }
             else{
                 throw new FlowException("Identity only be WillOwner");
             }
 
-            //***in corda we build transactions using transactionbuilder, we need to notary, command and output state to transaction***
-            //Retrieve the notary identity from the network map
-            progresstracker.setCurrentStep(RETRIEVING_NOTARY);
-            Party notary = getServiceHub().getNetworkMapCache().getNotaryIdentities().get(0);
-
-            //Create the transaction components(Input and Outputs)
-            //create output state, it has 3 fields including verifier for this use case
-
-            WillState outputState = new WillState(this.willId, this.willType, this.willDetails,"Verification Requested",  getOurIdentity(), this.verifier);
-
-            progresstracker.setCurrentStep(GENERATING_TRANSACTION);
-            TransactionBuilder txbuilder = new TransactionBuilder(notary);
-            txbuilder.addOutputState(outputState, WILL_CONTRACT_ID);
-            txbuilder.addCommand(new WillContract.RequestWill(), getOurIdentity().getOwningKey());
-
-            //Signing the transaction
-            progresstracker.setCurrentStep(SIGNING_TRANSACTION);
-            SignedTransaction willTx = getServiceHub().signInitialTransaction(txbuilder);
-
-            //Send transaction to counterparty, communication is done using session
-            //Create session with counterparty
-            progresstracker.setCurrentStep(COUNTERPARTY_SESSION);
-            FlowSession otherPartySession = initiateFlow(verifier);
-
-            /*// Obtaining the counterparty's signature.
-            SignedTransaction fullySignedTx = subFlow(new CollectSignaturesFlow(
-                    willTx, Arrays.asList(otherPartySession), CollectSignaturesFlow.Companion.tracker()));*/
+            //Reject duplicate will ids, the registry answers from memory unless the id may already be in the vault
+            timer.step(progresstracker, CHECKING_WILL_ID, WillFlowMetrics.WILL_ID_CHECK);
+            WillIdRegistry willIdRegistry = getServiceHub().cordaService(WillIdRegistry.class);
+            if(!willIdRegistry.tryReserve(this.willId)){
+                throw new FlowException("A Will with Will Id " + this.willId + " already exists");
+            }
 
-            //Verify transaction and send to Notary amd once it's done commit the transaction(can be done using subflow to finalize the transaction)
-            //Finalize the transaction
-            progresstracker.setCurrentStep(FINALIZING_TRANSACTION);
-            return subFlow(new FinalityFlow(willTx, otherPartySession));
+            try {
+                //***in corda we build transactions using transactionbuilder, we need to notary, command and output state to transaction***
+                //Retrieve the notary identity and the verifier from the node's network identity cache, the will id picks the notary
+                timer.step(progresstracker, RETRIEVING_NOTARY, WillFlowMetrics.NOTARY_LOOKUP);
+                NetworkIdentityCache networkIdentityCache = getServiceHub().cordaService(NetworkIdentityCache.class);
+                Party notary = networkIdentityCache.notaryFor(this.willId);
+                if(this.verifier == null) this.verifier = networkIdentityCache.wellKnownParty(this.verifierName);
+                if(this.verifier == null) throw new FlowException("Unknown verifier " + this.verifierName);
+                if(this.beneficiaries == null) this.beneficiaries = WillParties.resolve(networkIdentityCache, this.beneficiaryNames, "beneficiary");
+                if(this.coVerifiers == null) this.coVerifiers = WillParties.resolve(networkIdentityCache, this.coVerifierNames, "co-verifier");
+
+                //Create the transaction components(Input and Outputs)
+                //create output state, it has 3 fields including verifier for this use case
+
+                //Will details too long to carry inline are kept in a compressed attachment and summarised in the state
+                timer.step(progresstracker, GENERATING_TRANSACTION, WillFlowMetrics.TRANSACTION_BUILD);
+                SecureHash detailsAttachment = WillDetailsAttachments.store(getServiceHub(), this.willDetails, getOurIdentity().getName().toString());
+                WillState outputState = new WillState(this.willId, this.willType, WillDetailsAttachments.inlineDetails(this.willDetails), WillStatus.VERIFICATION_REQUESTED,
+                        getOurIdentity(), this.verifier, detailsAttachment, this.beneficiaries, this.coVerifiers);
+
+                TransactionBuilder txbuilder = new TransactionBuilder(notary);
+                txbuilder.addOutputState(outputState, WILL_CONTRACT_ID);
+                txbuilder.addCommand(new WillContract.RequestWill(), getOurIdentity().getOwningKey());
+                if(detailsAttachment != null) txbuilder.addAttachment(detailsAttachment);
+
+                //Signing the transaction
+                timer.step(progresstracker, SIGNING_TRANSACTION, WillFlowMetrics.SIGNING);
+                SignedTransaction willTx = getServiceHub().signInitialTransaction(txbuilder);
+
+                //Send transaction to counterparty, communication is done using session
+                //Create a session with every other party of the will: the verifier, co-verifiers and beneficiaries
+                timer.step(progresstracker, COUNTERPARTY_SESSION, WillFlowMetrics.COUNTERPARTY_SESSION);
+                List<FlowSession> sessions = new ArrayList<>();
+                for(Party party : WillParties.counterparties(getOurIdentity(), Collections.singletonList(outputState))) sessions.add(initiateFlow(party));
+
+                /*// Obtaining the counterparty's signature.
+                SignedTransaction fullySignedTx = subFlow(new CollectSignaturesFlow(
+                        willTx, Arrays.asList(otherPartySession), CollectSignaturesFlow.Companion.tracker()));*/
+
+                //Verify transaction and send to Notary amd once it's done commit the transaction(can be done using subflow to finalize the transaction)
+                //Finalize the transaction, it is sent to all of them at once
+                timer.step(progresstracker, FINALIZING_TRANSACTION, WillFlowMetrics.FINALITY);
+                return subFlow(new WillFinalityFlow(willTx, sessions));
+            } catch (FlowException | RuntimeException e) {
+                //Nothing was issued, free the will id again
+                willIdRegistry.release(this.willId);
+                throw e;
+            }
         }
     }
 
@@ -116,8 +196,9 @@ public class RequestWillFlow {
         @Suspendable
         @Override
         public SignedTransaction call() throws FlowException {
-               System.out.println("Received Will request for verification");
-               return subFlow(new ReceiveFinalityFlow(otherPartySession));
+               SignedTransaction stx = subFlow(new ReceiveWillFinalityFlow(otherPartySession));
+               WillFlowLogging.recorded(logger, "RequestWill", stx, otherPartySession, getRunId().getUuid());
+               return stx;
         }
     }
 
@@ -1,75 +1,165 @@
 package com.template.flows;
 
 import co.paralleluniverse.fibers.Suspendable;
-import com.template.contracts.WillContract;
 import com.template.states.WillState;
-import net.corda.core.contracts.StateAndRef;
+import net.corda.core.contracts.StateRef;
 import net.corda.core.flows.*;
-import net.corda.core.identity.Party;
+import net.corda.core.identity.CordaX500Name;
 import net.corda.core.node.services.Vault;
-import net.corda.core.node.services.vault.QueryCriteria;
-import net.corda.core.transactions.SignedTransaction;
-import net.corda.core.transactions.TransactionBuilder;
-import net.corda.core.utilities.ProgressTracker;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.serialization.CordaSerializable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
-import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
-
 public class SearchVaultFlow {
 
+    private static final Logger logger = LoggerFactory.getLogger(SearchVaultFlow.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    // Largest page a caller can ask for, so the memory used by one search is bounded by the page and not the vault
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /* Which wills to return. Null fields are not filtered on. */
+    @CordaSerializable
+    public static class WillSearchFilter {
+        private final Vault.StateStatus stateStatus;
+        private final String willType;
+        private final String willStatus;
+        private final CordaX500Name owner;
+        private final CordaX500Name verifier;
+
+        public WillSearchFilter(Vault.StateStatus stateStatus, String willType, String willStatus, CordaX500Name owner, CordaX500Name verifier) {
+            this.stateStatus = stateStatus != null ? stateStatus : Vault.StateStatus.UNCONSUMED;
+            this.willType = willType;
+            this.willStatus = willStatus;
+            this.owner = owner;
+            this.verifier = verifier;
+        }
+
+        // Every will state, consumed or not
+        public static WillSearchFilter all() {
+            return new WillSearchFilter(Vault.StateStatus.ALL, null, null, null, null);
+        }
+
+        public Vault.StateStatus getStateStatus() { return stateStatus; }
+        public String getWillType() { return willType; }
+        public String getWillStatus() { return willStatus; }
+        public CordaX500Name getOwner() { return owner; }
+        public CordaX500Name getVerifier() { return verifier; }
+    }
+
+    /* A will state without its will details, which are the bulk of the state. */
+    @CordaSerializable
+    public static class WillSummary {
+        private final String willId;
+        private final String willType;
+        private final String willStatus;
+        private final CordaX500Name owner;
+        private final CordaX500Name verifier;
+        private final boolean consumed;
+        private final Instant recordedTime;
+        private final StateRef stateRef;
+
+        public WillSummary(String willId, String willType, String willStatus, CordaX500Name owner, CordaX500Name verifier,
+                           boolean consumed, Instant recordedTime, StateRef stateRef) {
+            this.willId = willId;
+            this.willType = willType;
+            this.willStatus = willStatus;
+            this.owner = owner;
+            this.verifier = verifier;
+            this.consumed = consumed;
+            this.recordedTime = recordedTime;
+            this.stateRef = stateRef;
+        }
+
+        public String getWillId() { return willId; }
+        public String getWillType() { return willType; }
+        public String getWillStatus() { return willStatus; }
+        public CordaX500Name getOwner() { return owner; }
+        public CordaX500Name getVerifier() { return verifier; }
+        public boolean isConsumed() { return consumed; }
+        public Instant getRecordedTime() { return recordedTime; }
+        public StateRef getStateRef() { return stateRef; }
+    }
+
+    /* One page of results. nextPage is the page number to ask for next, or null when this is the last page. */
+    @CordaSerializable
+    public static class WillSearchPage {
+        private final List<WillSummary> results;
+        private final Integer nextPage;
+        private final long totalResults;
+
+        public WillSearchPage(List<WillSummary> results, Integer nextPage, long totalResults) {
+            this.results = results;
+            this.nextPage = nextPage;
+            this.totalResults = totalResults;
+        }
+
+        public List<WillSummary> getResults() { return results; }
+        public Integer getNextPage() { return nextPage; }
+        public long getTotalResults() { return totalResults; }
+    }
+
     @InitiatingFlow
     @StartableByRPC
-    public static class SearchVaultFlowInitiator extends FlowLogic<SignedTransaction>{
-
-        void searchForAllStates(){
-            //------------------------------------Search for consumed States------------------------------------
-            QueryCriteria consumedQueryCriteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.CONSUMED);
-            //Get All States of type will state which are consumed
-            List<StateAndRef<WillState>> consumedWillStates = getServiceHub().getVaultService().queryBy(WillState.class, consumedQueryCriteria).getStates();
-
-            if(consumedWillStates.size() <1 ){
-                System.out.println("No Consumed Will States found");
-            }else{
-                System.out.println("Total Consumed Will States found: "+consumedWillStates.size());
-            }
+    public static class SearchVaultFlowInitiator extends FlowLogic<WillSearchPage>{
 
-            consumedWillStates.forEach((x) ->{
-                System.out.println("Will Id: "+ x.getState().getData().getWillId());
-                System.out.println("Will Type: "+ x.getState().getData().getWillType());
-                System.out.println("Will Details: "+ x.getState().getData().getWillDetails());
-                System.out.println("Will Owner: "+ x.getState().getData().getOwner());
-                System.out.println("Will Verifier: "+ x.getState().getData().getVerifier());
-            });
-
-            //------------------------------------Search for un consumed States------------------------------------
-            QueryCriteria unConsumedQueryCriteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED);
-            //Get All States of type will state which are consumed
-            List<StateAndRef<WillState>> unConsumedWillStates = getServiceHub().getVaultService().queryBy(WillState.class, unConsumedQueryCriteria).getStates();
-
-            if(unConsumedWillStates.size() <1 ){
-                System.out.println("No Un-Consumed Will States found");
-            }else{
-                System.out.println("Total Un-Consumed Will States found: "+unConsumedWillStates.size());
-            }
+        private final WillSearchFilter filter;
+        private final int pageNumber;
+        private final int pageSize;
 
-            unConsumedWillStates.forEach((x) ->{
-                System.out.println("Will Id: "+ x.getState().getData().getWillId());
-                System.out.println("Will Type: "+ x.getState().getData().getWillType());
-                System.out.println("Will Details: "+ x.getState().getData().getWillDetails());
-                System.out.println("Will Owner: "+ x.getState().getData().getOwner());
-                System.out.println("Will Verifier: "+ x.getState().getData().getVerifier());
-            });
+        // First page of every will state, consumed or not
+        public SearchVaultFlowInitiator() {
+            this(WillSearchFilter.all(), 1, DEFAULT_PAGE_SIZE);
+        }
+
+        public SearchVaultFlowInitiator(WillSearchFilter filter, int pageNumber, int pageSize) {
+            if(pageNumber < 1) throw new IllegalArgumentException("Page number starts at 1");
+            if(pageSize < 1 || pageSize > MAX_PAGE_SIZE) throw new IllegalArgumentException("Page size has to be between 1 and " + MAX_PAGE_SIZE);
+            this.filter = filter;
+            this.pageNumber = pageNumber;
+            this.pageSize = pageSize;
         }
 
         @Override
         @Suspendable
-        public SignedTransaction call() throws FlowException {
-            //Initiator logic goes here
-            searchForAllStates();
-            return null;
+        public WillSearchPage call() throws FlowException {
+            //Only the requested page is read from the vault, filtered and ordered in the database
+            Vault.Page<WillState> page = getServiceHub().getVaultService().queryBy(
+                    WillState.class, WillQueries.search(filter), new PageSpecification(pageNumber, pageSize), WillQueries.SEARCH_ORDER);
+
+            List<WillSummary> results = new ArrayList<>(page.getStates().size());
+            for(int i = 0; i < page.getStates().size(); i++){
+                WillState willState = page.getStates().get(i).getState().getData();
+                Vault.StateMetadata metadata = page.getStatesMetadata().get(i);
+                results.add(new WillSummary(
+                        willState.getWillId(),
+                        willState.getWillType(),
+                        willState.getWillStatus(),
+                        willState.getOwner().getName(),
+                        willState.getVerifier().getName(),
+                        metadata.getStatus() == Vault.StateStatus.CONSUMED,
+                        metadata.getRecordedTime(),
+                        metadata.getRef()));
+            }
+
+            //Per-state output is only produced when debug logging is switched on for this flow
+            if(logger.isDebugEnabled()){
+                for(WillSummary summary : results){
+                    logger.debug("Search result willId={} willType={} willStatus={} owner={} verifier={} consumed={} flowId={}",
+                            summary.getWillId(), summary.getWillType(), summary.getWillStatus(), summary.getOwner(),
+                            summary.getVerifier(), summary.isConsumed(), getRunId().getUuid());
+                }
+            }
+
+            long returnedSoFar = (long)(pageNumber - 1) * pageSize + results.size();
+            Integer nextPage = returnedSoFar < page.getTotalStatesAvailable() ? pageNumber + 1 : null;
+            return new WillSearchPage(results, nextPage, page.getTotalStatesAvailable());
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.services.WillOutbox;
+import com.template.services.WillOutboxSchemaV1.PersistentSubmission;
+import com.template.states.WillType;
+import net.corda.core.flows.*;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.serialization.CordaSerializable;
+import net.corda.core.transactions.SignedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+
+public class SubmitWillFlow {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmitWillFlow.class);
+
+    /* Progress of a will submitted with SubmitWillFlowInitiator, as kept in the node's outbox. */
+    @CordaSerializable
+    public static class WillSubmission {
+        private final String requestId;
+        private final String willId;
+        private final String status;
+        private final String transactionId;
+        private final String error;
+        private final Instant createdAt;
+        private final Instant updatedAt;
+
+        public WillSubmission(String requestId, String willId, String status, String transactionId, String error,
+                              Instant createdAt, Instant updatedAt) {
+            this.requestId = requestId;
+            this.willId = willId;
+            this.status = status;
+            this.transactionId = transactionId;
+            this.error = error;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+        }
+
+        static WillSubmission of(PersistentSubmission submission) {
+            return new WillSubmission(submission.getRequestId(), submission.getWillId(), submission.getStatus(),
+                    submission.getTransactionId(), submission.getError(), submission.getCreatedAt(), submission.getUpdatedAt());
+        }
+
+        public String getRequestId() { return requestId; }
+        public String getWillId() { return willId; }
+        public String getStatus() { return status; }
+        public String getTransactionId() { return transactionId; }
+        public String getError() { return error; }
+        public Instant getCreatedAt() { return createdAt; }
+        public Instant getUpdatedAt() { return updatedAt; }
+    }
+
+    /**
+     * Queues a will request in the node's outbox and returns its request id straight away, without waiting for the
+     * verifier or the notary. The will is issued by IssueSubmittedWillFlow once a worker is free, and its progress is
+     * read with WillSubmissionStatusFlow.
+     */
+    @InitiatingFlow
+    @StartableByRPC
+    public static class SubmitWillFlowInitiator extends FlowLogic<String>{
+
+        private final String willId;
+        private final String willType;
+        private final String willDetails;
+        private final CordaX500Name verifier;
+
+        public SubmitWillFlowInitiator(String willId, String willType, String willDetails, CordaX500Name verifier) {
+            this.willId = willId;
+            this.willType = willType;
+            this.willDetails = willDetails;
+            this.verifier = verifier;
+        }
+
+        @Override
+        @Suspendable
+        public String call() throws FlowException {
+            //Reject what RequestWillFlow would reject for certain, before anything is queued
+            if(!getOurIdentity().getName().getOrganisation().equalsIgnoreCase("WillOwner")) {
+                throw new FlowException("Identity only be WillOwner");
+            }
+            if(willId == null || willId.isEmpty()) throw new FlowException("The Will Id cannot be empty");
+            if(WillType.fromLabel(willType) == null) throw new FlowException(WillType.INVALID_TYPE_MESSAGE);
+            if(verifier == null) throw new FlowException("The verifier cannot be empty");
+
+            //The run id is unique, and the same if the flow is restarted before the row is committed
+            String requestId = getRunId().getUuid().toString();
+            getServiceHub().cordaService(WillOutbox.class).submit(requestId, willId, willType, willDetails, verifier);
+            logger.info("Will submission queued willId={} requestId={}", willId, requestId);
+            return requestId;
+        }
+    }
+
+    /**
+     * Issues a queued will with RequestWillFlow and records the outcome in the outbox. Started by WillOutbox only.
+     *
+     * The submission is claimed with a conditional update, so if it is handed out twice, e.g. once by the poller and
+     * once from its checkpoint after a restart, only one flow issues it.
+     */
+    @StartableByService
+    public static class IssueSubmittedWillFlow extends FlowLogic<String>{
+
+        private final String requestId;
+
+        public IssueSubmittedWillFlow(String requestId) {
+            this.requestId = requestId;
+        }
+
+        @Override
+        @Suspendable
+        public String call() throws FlowException {
+            WillOutbox outbox = getServiceHub().cordaService(WillOutbox.class);
+            String flowId = getRunId().getUuid().toString();
+            PersistentSubmission submission = outbox.claim(requestId, flowId);
+            if(submission == null) {
+                logger.debug("Will submission already claimed requestId={} flowId={}", requestId, flowId);
+                return null;
+            }
+
+            try {
+                SignedTransaction finalTx = subFlow(new RequestWillFlow.RequestWillFlowInitiator(submission.getWillId(),
+                        submission.getWillType(), submission.getWillDetails(), CordaX500Name.parse(submission.getVerifier())));
+                outbox.complete(requestId, finalTx.getId().toString());
+                logger.info("Will submission completed willId={} requestId={} txId={}", submission.getWillId(), requestId, finalTx.getId());
+                return WillOutbox.COMPLETED;
+            } catch (FlowException | RuntimeException e) {
+                //RequestWillFlow records the will before it sends it to the verifier, so a failure after that has still issued it
+                String transactionId = outbox.issuanceTransaction(submission);
+                if(transactionId != null) {
+                    outbox.complete(requestId, transactionId);
+                    logger.warn("Will submission completed but not distributed willId={} requestId={} txId={} error={}",
+                            submission.getWillId(), requestId, transactionId, e.toString());
+                    return WillOutbox.COMPLETED;
+                }
+                outbox.fail(requestId, flowId, e.getMessage() != null ? e.getMessage() : e.toString());
+                logger.warn("Will submission failed willId={} requestId={} error={}", submission.getWillId(), requestId, e.toString());
+                return WillOutbox.FAILED;
+            }
+        }
+    }
+
+    /* Returns the progress of a submitted will, or null when the node has no submission with the request id. */
+    @InitiatingFlow
+    @StartableByRPC
+    public static class WillSubmissionStatusFlow extends FlowLogic<WillSubmission>{
+
+        private final String requestId;
+
+        public WillSubmissionStatusFlow(String requestId) {
+            this.requestId = requestId;
+        }
+
+        @Override
+        @Suspendable
+        public WillSubmission call() throws FlowException {
+            PersistentSubmission submission = getServiceHub().cordaService(WillOutbox.class).find(requestId);
+            return submission != null ? WillSubmission.of(submission) : null;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.template.flows;
+
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.serialization.ConstructorForDeserialization;
+import net.corda.core.serialization.CordaSerializable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch flow run: the will ids that went through, the reason for each will id that did not, and the
+ * transactions that were finalised. A transaction that was committed but could not be sent to every party is listed
+ * with its wills as completed, and with the error in distributionErrors.
+ */
+@CordaSerializable
+public class WillBatchResult {
+    private final List<String> completedWillIds;
+    private final Map<String, String> failedWillIds;
+    private final List<SecureHash> transactionIds;
+    private final Map<SecureHash, String> distributionErrors;
+
+    public WillBatchResult(List<String> completedWillIds, Map<String, String> failedWillIds, List<SecureHash> transactionIds) {
+        this(completedWillIds, failedWillIds, transactionIds, Collections.emptyMap());
+    }
+
+    @ConstructorForDeserialization
+    public WillBatchResult(List<String> completedWillIds, Map<String, String> failedWillIds, List<SecureHash> transactionIds,
+                           Map<SecureHash, String> distributionErrors) {
+        this.completedWillIds = completedWillIds;
+        this.failedWillIds = failedWillIds;
+        this.transactionIds = transactionIds;
+        this.distributionErrors = distributionErrors != null ? distributionErrors : Collections.emptyMap();
+    }
+
+    public List<String> getCompletedWillIds() { return completedWillIds; }
+    public Map<String, String> getFailedWillIds() { return failedWillIds; }
+    public List<SecureHash> getTransactionIds() { return transactionIds; }
+    public Map<SecureHash, String> getDistributionErrors() { return distributionErrors; }
+}
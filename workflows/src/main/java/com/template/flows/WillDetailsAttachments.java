@@ -0,0 +1,115 @@
+package com.template.flows;
+
+import net.corda.core.contracts.Attachment;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.node.ServiceHub;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.template.contracts.WillContract.MAX_INLINE_DETAILS_LENGTH;
+
+/**
+ * Keeps will details that are too long to carry inline in a WillState in a compressed attachment.
+ *
+ * The attachment is a zip with a single deflated entry and fixed entry metadata, so the same details always give the
+ * same attachment id and are stored once however many wills share them. The entry is named after the hash of the
+ * details: a transaction cannot carry two attachments with a file of the same name, and a batch can carry the
+ * attachments of many wills.
+ */
+public final class WillDetailsAttachments {
+
+    // Length of the summary a WillState carries when its full details are kept in an attachment
+    public static final int SUMMARY_LENGTH = 256;
+    static final String ENTRY_PREFIX = "will-details";
+    static final String ENTRY_SUFFIX = ".txt";
+
+    private WillDetailsAttachments() {}
+
+    public static boolean needsAttachment(String willDetails) {
+        return willDetails != null && willDetails.length() > MAX_INLINE_DETAILS_LENGTH;
+    }
+
+    // The details to carry inline in the state, the full details when they fit and a summary when they do not. The
+    // summary is at most SUMMARY_LENGTH chars and one shorter when the cut would split a surrogate pair
+    public static String inlineDetails(String willDetails) {
+        if (!needsAttachment(willDetails)) return willDetails;
+        int end = SUMMARY_LENGTH;
+        if (Character.isHighSurrogate(willDetails.charAt(end - 1))) end--;
+        return willDetails.substring(0, end);
+    }
+
+    // Stores the details as an attachment when they are too long to carry inline. Returns the attachment id, or null
+    // when the details fit in the state
+    public static SecureHash store(ServiceHub serviceHub, String willDetails, String uploader) {
+        if (!needsAttachment(willDetails)) return null;
+
+        byte[] attachment = compress(willDetails);
+        SecureHash attachmentId = SecureHash.sha256(attachment);
+        if (!serviceHub.getAttachments().hasAttachment(attachmentId)) {
+            try (InputStream input = new ByteArrayInputStream(attachment)) {
+                serviceHub.getAttachments().importAttachment(input, uploader, entryName(willDetails));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return attachmentId;
+    }
+
+    // Name of the entry holding the details, unique to the details so attachments of different details never overlap
+    static String entryName(String willDetails) {
+        return ENTRY_PREFIX + "-" + SecureHash.sha256(willDetails.getBytes(StandardCharsets.UTF_8)) + ENTRY_SUFFIX;
+    }
+
+    static byte[] compress(String willDetails) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.setLevel(9);
+            ZipEntry entry = new ZipEntry(entryName(willDetails));
+            entry.setTime(0);
+            zip.putNextEntry(entry);
+            zip.write(willDetails.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Reads the full will details back out of their attachment
+    public static String read(Attachment attachment) {
+        try (InputStream input = attachment.open()) {
+            return read(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Reads the full will details out of the content of their attachment, as returned by openAttachment over RPC.
+    // Attachments stored before the entry was named after the details hold a single "will-details.txt" entry
+    public static String read(InputStream attachment) {
+        try (JarInputStream jar = new JarInputStream(attachment)) {
+            for (ZipEntry entry = jar.getNextEntry(); entry != null; entry = jar.getNextEntry()) {
+                if (!isDetailsEntry(entry.getName())) continue;
+                ByteArrayOutputStream details = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                for (int read = jar.read(buffer); read != -1; read = jar.read(buffer)) details.write(buffer, 0, read);
+                return new String(details.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalArgumentException("Attachment does not hold will details");
+    }
+
+    private static boolean isDetailsEntry(String name) {
+        return name.startsWith(ENTRY_PREFIX) && name.endsWith(ENTRY_SUFFIX) && name.indexOf('/') < 0;
+    }
+}
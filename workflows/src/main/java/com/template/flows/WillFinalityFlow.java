@@ -0,0 +1,100 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.crypto.TransactionSignature;
+import net.corda.core.flows.*;
+import net.corda.core.node.ServiceHub;
+import net.corda.core.node.StatesToRecord;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.utilities.UntrustworthyData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Notarises a fully signed will transaction, records it and sends it to every other party of the wills at once.
+ *
+ * FinalityFlow sends the transaction to one session after the other, so its latency grows with every beneficiary and
+ * co-verifier. Here the transaction goes out with one sendAll and each party replies, in one receiveAll, whether it
+ * holds everything needed to verify it: the input transactions and the attachments. Parties that do record it
+ * straight away. Only a party that is missing some of them, e.g. a beneficiary that has never seen the will details
+ * attachment, is then served through SendTransactionFlow. The other side runs ReceiveWillFinalityFlow.
+ *
+ * The transaction is recorded here before it is sent, so a flow that fails after that point has still changed the
+ * ledger. Callers that report failures check isRecorded before telling anyone to retry.
+ *
+ * Version 1 of the will flows finalised with FinalityFlow and ReceiveFinalityFlow. The initiating will flows are at
+ * FLOW_VERSION, and both sides fall back to the FinalityFlow protocol for a counterparty still on version 1, so nodes
+ * can be upgraded one at a time.
+ */
+public class WillFinalityFlow extends FlowLogic<SignedTransaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(WillFinalityFlow.class);
+
+    // Flow version of the initiating will flows that finalise with WillFinalityFlow
+    public static final int FLOW_VERSION = 2;
+
+    private final SignedTransaction stx;
+    private final List<FlowSession> sessions;
+
+    public WillFinalityFlow(SignedTransaction stx, List<FlowSession> sessions) {
+        this.stx = stx;
+        this.sessions = sessions;
+    }
+
+    @Override
+    @Suspendable
+    public SignedTransaction call() throws FlowException {
+        try {
+            stx.verify(getServiceHub(), false);
+        } catch (Exception e) {
+            throw new FlowException("Will transaction " + stx.getId() + " is not valid: " + e.getMessage(), e);
+        }
+
+        //Like FinalityFlow, an issuance without inputs or a time window does not need the notary
+        SignedTransaction notarised = stx;
+        if(stx.getNotary() != null && (!stx.getInputs().isEmpty() || !stx.getReferences().isEmpty() || stx.getTx().getTimeWindow() != null)){
+            List<TransactionSignature> notarySignatures = subFlow(new NotaryFlow.Client(stx));
+            notarised = stx.withAdditionalSignatures(notarySignatures);
+        }
+        getServiceHub().recordTransactions(StatesToRecord.ONLY_RELEVANT, Collections.singletonList(notarised));
+        if(sessions.isEmpty()) return notarised;
+
+        //A counterparty still on version 1 runs ReceiveFinalityFlow, which is sent the transaction the way FinalityFlow
+        //sends it. Asking for the version opens that session on its own instead of along with the others in sendAll
+        List<FlowSession> recipients = new ArrayList<>();
+        int legacy = 0;
+        for(FlowSession session : new LinkedHashSet<>(sessions)){
+            if(session.getCounterpartyFlowInfo().getFlowVersion() >= FLOW_VERSION){
+                recipients.add(session);
+            } else {
+                subFlow(new SendTransactionFlow(session, notarised));
+                legacy++;
+            }
+        }
+        if(recipients.isEmpty()) return notarised;
+
+        sendAll(notarised, new LinkedHashSet<>(recipients), false);
+        List<UntrustworthyData<Boolean>> replies = receiveAll(Boolean.class, recipients, false);
+
+        int resolved = 0;
+        for(int i = 0; i < recipients.size(); i++){
+            boolean recorded = replies.get(i).unwrap(reply -> reply);
+            if(recorded) continue;
+            subFlow(new SendTransactionFlow(recipients.get(i), notarised));
+            resolved++;
+        }
+        logger.debug("Will transaction distributed txId={} parties={} resolved={} legacy={} flowId={}", notarised.getId(), recipients.size() + legacy, resolved, legacy, getRunId().getUuid());
+        return notarised;
+    }
+
+    // Whether the transaction was committed to this node's ledger, even though the flow finalising it failed afterwards
+    public static boolean isRecorded(ServiceHub serviceHub, SecureHash txId) {
+        return serviceHub.getValidatedTransactions().getTransaction(txId) != null;
+    }
+}
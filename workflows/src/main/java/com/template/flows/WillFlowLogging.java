@@ -0,0 +1,31 @@
+package com.template.flows;
+
+import com.template.states.WillState;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.transactions.SignedTransaction;
+import org.slf4j.Logger;
+
+import java.util.UUID;
+
+/**
+ * Log lines shared by the will flows. Values are written as key=value pairs so the node logs can be filtered and
+ * parsed by will id, flow id and command.
+ */
+final class WillFlowLogging {
+
+    private WillFlowLogging() {}
+
+    // Logged by a responder once a will transaction from the counterparty is recorded, one debug line per will
+    static void recorded(Logger logger, String command, SignedTransaction stx, FlowSession session, UUID flowId) {
+        logger.info("Recorded will transaction command={} txId={} counterparty={} wills={} flowId={}",
+                command, stx.getId(), session.getCounterparty().getName(), stx.getTx().getOutputs().size(), flowId);
+        if (!logger.isDebugEnabled()) return;
+        for (ContractState output : stx.getTx().getOutputStates()) {
+            if (!(output instanceof WillState)) continue;
+            WillState willState = (WillState) output;
+            logger.debug("Recorded will command={} willId={} willStatus={} txId={} flowId={}",
+                    command, willState.getWillId(), willState.getWillStatus(), stx.getId(), flowId);
+        }
+    }
+}
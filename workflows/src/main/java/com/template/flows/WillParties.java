@@ -0,0 +1,64 @@
+package com.template.flows;
+
+import com.template.services.NetworkIdentityCache;
+import com.template.states.WillState;
+import net.corda.core.flows.FlowException;
+import net.corda.core.identity.AbstractParty;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parties the will flows open sessions with and collect signatures from, now that a will can have any number of
+ * beneficiaries and co-verifiers besides its owner and verifier.
+ */
+final class WillParties {
+
+    private WillParties() {}
+
+    // Resolves parties given by name on the node, an unknown name fails the flow
+    static List<Party> resolve(NetworkIdentityCache networkIdentityCache, List<CordaX500Name> names, String role) throws FlowException {
+        if (names == null || names.isEmpty()) return Collections.emptyList();
+        List<Party> parties = new ArrayList<>(names.size());
+        for (CordaX500Name name : names) {
+            Party party = networkIdentityCache.wellKnownParty(name);
+            if (party == null) throw new FlowException("Unknown " + role + " " + name);
+            parties.add(party);
+        }
+        return parties;
+    }
+
+    // Every participant of the wills other than us, each once, in the order the wills list them
+    static List<Party> counterparties(Party us, Collection<WillState> wills) {
+        Set<Party> counterparties = new LinkedHashSet<>();
+        for (WillState will : wills) {
+            for (AbstractParty participant : will.getParticipants()) {
+                if (participant instanceof Party && !participant.equals(us)) counterparties.add((Party) participant);
+            }
+        }
+        return new ArrayList<>(counterparties);
+    }
+
+    // The co-verifiers of the wills other than us, who sign their transitions alongside the verifier
+    static List<Party> coVerifiers(Party us, Collection<WillState> wills) {
+        Set<Party> coVerifiers = new LinkedHashSet<>();
+        for (WillState will : wills) coVerifiers.addAll(will.getCoVerifiers());
+        coVerifiers.remove(us);
+        return new ArrayList<>(coVerifiers);
+    }
+
+    // The keys a transition command has to list: ours as the verifier and those of the co-verifiers
+    static List<PublicKey> transitionSigners(Party us, List<Party> coVerifiers) {
+        List<PublicKey> signers = new ArrayList<>(coVerifiers.size() + 1);
+        signers.add(us.getOwningKey());
+        for (Party coVerifier : coVerifiers) signers.add(coVerifier.getOwningKey());
+        return signers;
+    }
+}
@@ -0,0 +1,116 @@
+package com.template.flows;
+
+import com.template.schemas.WillSchemaV1;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.ServiceHub;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.BinaryComparisonOperator;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.ColumnPredicate;
+import net.corda.core.node.services.vault.FieldInfo;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.node.services.vault.SortAttribute;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+/**
+ * Vault queries for WillState that go through the indexed columns of WillSchemaV1.
+ */
+public final class WillQueries {
+
+    // Largest number of will ids put into a single IN clause, some databases reject longer lists
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    private WillQueries() {}
+
+    // Orders search results by will id, then by state ref so that paging through them is stable
+    public static final Sort SEARCH_ORDER = new Sort(Arrays.asList(
+            new Sort.SortColumn(new SortAttribute.Custom(WillSchemaV1.PersistentWill.class, "willId"), Sort.Direction.ASC),
+            new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_TXN_ID), Sort.Direction.ASC),
+            new Sort.SortColumn(new SortAttribute.Standard(Sort.CommonStateAttribute.STATE_REF_INDEX), Sort.Direction.ASC)));
+
+    // Criteria matching the unconsumed state(s) carrying the given will id
+    public static QueryCriteria unconsumedByWillId(String willId) {
+        return columnEquals("willId", willId, Vault.StateStatus.UNCONSUMED);
+    }
+
+    // Criteria matching the unconsumed states carrying any of the given will ids
+    public static QueryCriteria unconsumedByWillIds(Collection<String> willIds) {
+        FieldInfo willIdField = getField("willId", WillSchemaV1.PersistentWill.class);
+        return new QueryCriteria.VaultCustomQueryCriteria(Builder.in(willIdField, willIds), Vault.StateStatus.UNCONSUMED);
+    }
+
+    // Criteria for a will search, every filter field that is set becomes a condition on its indexed column
+    public static QueryCriteria search(SearchVaultFlow.WillSearchFilter filter) {
+        Vault.StateStatus status = filter.getStateStatus();
+        QueryCriteria criteria = new QueryCriteria.VaultQueryCriteria(status);
+        if (filter.getWillType() != null) {
+            //The schema stores the canonical label of the will type
+            WillType willType = WillType.fromLabel(filter.getWillType());
+            criteria = criteria.and(columnEquals("willType", willType != null ? willType.getLabel() : filter.getWillType(), status));
+        }
+        if (filter.getWillStatus() != null) {
+            //The schema stores the label of the will status
+            WillStatus willStatus = WillStatus.fromLabel(filter.getWillStatus());
+            criteria = criteria.and(columnEquals("willStatus", willStatus != null ? willStatus.getLabel() : filter.getWillStatus(), status));
+        }
+        if (filter.getOwner() != null) {
+            criteria = criteria.and(columnEquals("owner", filter.getOwner().toString(), status));
+        }
+        if (filter.getVerifier() != null) {
+            criteria = criteria.and(columnEquals("verifier", filter.getVerifier().toString(), status));
+        }
+        return criteria;
+    }
+
+    private static QueryCriteria columnEquals(String fieldName, Object value, Vault.StateStatus status) {
+        FieldInfo field = getField(fieldName, WillSchemaV1.PersistentWill.class);
+        return new QueryCriteria.VaultCustomQueryCriteria(Builder.equal(field, value), status);
+    }
+
+    // Returns the unconsumed state for the will id, or null when the vault does not hold one
+    public static StateAndRef<WillState> findUnconsumed(ServiceHub serviceHub, String willId) {
+        List<StateAndRef<WillState>> willStates = serviceHub.getVaultService().queryBy(WillState.class, unconsumedByWillId(willId)).getStates();
+        return willStates.isEmpty() ? null : willStates.get(willStates.size() - 1);
+    }
+
+    // Returns the unconsumed states for the will ids, one indexed query per IN_CLAUSE_LIMIT ids
+    public static List<StateAndRef<WillState>> findUnconsumed(ServiceHub serviceHub, Collection<String> willIds) {
+        List<String> distinctWillIds = new ArrayList<>(new LinkedHashSet<>(willIds));
+        List<StateAndRef<WillState>> willStates = new ArrayList<>();
+        for (int from = 0; from < distinctWillIds.size(); from += IN_CLAUSE_LIMIT) {
+            List<String> chunk = distinctWillIds.subList(from, Math.min(distinctWillIds.size(), from + IN_CLAUSE_LIMIT));
+            willStates.addAll(serviceHub.getVaultService()
+                    .queryBy(WillState.class, unconsumedByWillIds(chunk), new PageSpecification(1, chunk.size()))
+                    .getStates());
+        }
+        return willStates;
+    }
+
+    // Returns the request of the will id by the owner that was recorded at or after the given time, or null when the
+    // vault holds none. Used to find out whether a flow that failed had issued the will before it did
+    public static StateAndRef<WillState> findIssuance(ServiceHub serviceHub, String willId, CordaX500Name owner, Instant recordedFrom) {
+        QueryCriteria criteria = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.ALL)
+                .withTimeCondition(new QueryCriteria.TimeCondition(QueryCriteria.TimeInstantType.RECORDED,
+                        new ColumnPredicate.BinaryComparison<>(BinaryComparisonOperator.GREATER_THAN_OR_EQUAL, recordedFrom)))
+                .and(columnEquals("willId", willId, Vault.StateStatus.ALL))
+                .and(columnEquals("owner", owner.toString(), Vault.StateStatus.ALL))
+                .and(columnEquals("willStatus", WillStatus.VERIFICATION_REQUESTED.getLabel(), Vault.StateStatus.ALL));
+        List<StateAndRef<WillState>> willStates = serviceHub.getVaultService()
+                .queryBy(WillState.class, criteria, new PageSpecification(1, 1)).getStates();
+        return willStates.isEmpty() ? null : willStates.get(0);
+    }
+}
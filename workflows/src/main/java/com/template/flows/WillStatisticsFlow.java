@@ -0,0 +1,113 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.schemas.WillSchemaV1;
+import com.template.states.WillState;
+import net.corda.core.flows.*;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.Builder;
+import net.corda.core.node.services.vault.FieldInfo;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.node.services.vault.Sort;
+import net.corda.core.serialization.CordaSerializable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import static net.corda.core.node.services.vault.QueryCriteriaUtils.getField;
+
+public class WillStatisticsFlow {
+
+    // Key under which wills without a value in the grouped column are counted
+    public static final String UNSET = "unset";
+    // Groups read per aggregate query, the rows returned are groups and not states
+    private static final int GROUP_PAGE_SIZE = 1000;
+
+    /* Number of wills per will type, will status, owner and verifier. Each map is ordered by count, largest first. */
+    @CordaSerializable
+    public static class WillStatistics {
+        private final Vault.StateStatus stateStatus;
+        private final long totalWills;
+        private final Map<String, Long> byWillType;
+        private final Map<String, Long> byWillStatus;
+        private final Map<String, Long> byOwner;
+        private final Map<String, Long> byVerifier;
+
+        public WillStatistics(Vault.StateStatus stateStatus, long totalWills, Map<String, Long> byWillType, Map<String, Long> byWillStatus,
+                              Map<String, Long> byOwner, Map<String, Long> byVerifier) {
+            this.stateStatus = stateStatus;
+            this.totalWills = totalWills;
+            this.byWillType = byWillType;
+            this.byWillStatus = byWillStatus;
+            this.byOwner = byOwner;
+            this.byVerifier = byVerifier;
+        }
+
+        /**
+         * Counts the wills with one grouped SQL aggregate per column, through the given vault query (the vault service
+         * in a flow, or the RPC proxy in a client). No state is loaded or deserialised.
+         */
+        public static WillStatistics compute(BiFunction<QueryCriteria, PageSpecification, Vault.Page<WillState>> query, Vault.StateStatus stateStatus) {
+            Map<String, Long> byWillStatus = countBy(query, "willStatus", stateStatus);
+            long totalWills = byWillStatus.values().stream().mapToLong(Long::longValue).sum();
+            return new WillStatistics(stateStatus, totalWills,
+                    countBy(query, "willType", stateStatus),
+                    byWillStatus,
+                    countBy(query, "owner", stateStatus),
+                    countBy(query, "verifier", stateStatus));
+        }
+
+        private static Map<String, Long> countBy(BiFunction<QueryCriteria, PageSpecification, Vault.Page<WillState>> query, String fieldName, Vault.StateStatus stateStatus) {
+            FieldInfo tally = getField("tally", WillSchemaV1.PersistentWill.class);
+            FieldInfo groupBy = getField(fieldName, WillSchemaV1.PersistentWill.class);
+            QueryCriteria criteria = new QueryCriteria.VaultCustomQueryCriteria(
+                    Builder.sum(tally, Collections.singletonList(groupBy), Sort.Direction.DESC), stateStatus);
+
+            //Each row of the result is the sum followed by the group value
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (int pageNumber = 1; ; pageNumber++) {
+                List<Object> rows = query.apply(criteria, new PageSpecification(pageNumber, GROUP_PAGE_SIZE)).getOtherResults();
+                for (int i = 0; i + 1 < rows.size(); i += 2) {
+                    String group = rows.get(i + 1) != null ? rows.get(i + 1).toString() : UNSET;
+                    counts.merge(group, ((Number) rows.get(i)).longValue(), Long::sum);
+                }
+                if (rows.size() < 2 * GROUP_PAGE_SIZE) return counts;
+            }
+        }
+
+        public Vault.StateStatus getStateStatus() { return stateStatus; }
+        public long getTotalWills() { return totalWills; }
+        public Map<String, Long> getByWillType() { return byWillType; }
+        public Map<String, Long> getByWillStatus() { return byWillStatus; }
+        public Map<String, Long> getByOwner() { return byOwner; }
+        public Map<String, Long> getByVerifier() { return byVerifier; }
+    }
+
+    /* Counts the wills in this node's vault, unconsumed ones unless another state status is asked for. */
+    @InitiatingFlow
+    @StartableByRPC
+    public static class WillStatisticsFlowInitiator extends FlowLogic<WillStatistics>{
+
+        private final Vault.StateStatus stateStatus;
+
+        public WillStatisticsFlowInitiator() {
+            this(Vault.StateStatus.UNCONSUMED);
+        }
+
+        public WillStatisticsFlowInitiator(Vault.StateStatus stateStatus) {
+            this.stateStatus = stateStatus != null ? stateStatus : Vault.StateStatus.UNCONSUMED;
+        }
+
+        @Override
+        @Suspendable
+        public WillStatistics call() throws FlowException {
+            return WillStatistics.compute(
+                    (criteria, paging) -> getServiceHub().getVaultService().queryBy(WillState.class, criteria, paging), stateStatus);
+        }
+    }
+
+}
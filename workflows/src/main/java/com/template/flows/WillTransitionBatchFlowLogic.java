@@ -0,0 +1,235 @@
+package com.template.flows;
+
+import co.paralleluniverse.fibers.Suspendable;
+import com.template.services.WillFlowMetrics;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.contracts.CommandData;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.flows.FlowSession;
+import net.corda.core.flows.KilledFlowException;
+import net.corda.core.identity.AbstractParty;
+import net.corda.core.identity.Party;
+import net.corda.core.node.services.StatesNotAvailableException;
+import net.corda.core.node.services.VaultService;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.core.utilities.NonEmptySet;
+import net.corda.core.utilities.ProgressTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
+
+/**
+ * Shared logic of the bulk will transitions run by the Will Certifier.
+ *
+ * The inputs for all requested will ids are resolved with one indexed vault query and grouped by notary and will
+ * participants. Each group is then consumed and re-issued up to batchSize wills per transaction, so a transaction
+ * costs one signature, one round of co-verifier signatures, one notarisation and one WillFinalityFlow to the owner,
+ * beneficiaries and co-verifiers however many wills it carries. The inputs are soft locked to the flow first, wills
+ * another flow on this node is already moving are reported as failed.
+ */
+public abstract class WillTransitionBatchFlowLogic extends FlowLogic<WillBatchResult> {
+
+    private static final Logger logger = LoggerFactory.getLogger(WillTransitionBatchFlowLogic.class);
+
+    private final List<String> willIds;
+    private final int batchSize;
+
+    //adding steps to create a trail
+    private final ProgressTracker.Step VALIDATING_OWNER = new ProgressTracker.Step("Validating the Owner of transaction");
+    private final ProgressTracker.Step RETRIEVING_INPUTS = new ProgressTracker.Step("Retrieving the input Will States from the vault");
+    private final ProgressTracker.Step FINALIZING_BATCHES = new ProgressTracker.Step("Signing, notarising and distributing the batched transactions");
+
+    private final ProgressTracker progresstracker = new ProgressTracker(
+            VALIDATING_OWNER,
+            RETRIEVING_INPUTS,
+            FINALIZING_BATCHES
+    );
+
+    protected WillTransitionBatchFlowLogic(List<String> willIds, int batchSize) {
+        if(batchSize < 1) throw new IllegalArgumentException("Batch size has to be at least 1");
+        this.willIds = willIds;
+        this.batchSize = batchSize;
+    }
+
+    // The will status the inputs have to be in for this transition
+    protected abstract WillStatus requiredInputStatus();
+
+    // The command put on every transaction of this transition
+    protected abstract CommandData command();
+
+    // The output re-issued for an input of this transition
+    protected abstract WillState transition(WillState input);
+
+    @Override
+    public ProgressTracker getProgressTracker() {return progresstracker;}
+
+    @Override
+    @Suspendable
+    public WillBatchResult call() throws FlowException {
+        //Timed under the name of the batch flow, e.g. GenerateWillBatchFlow
+        WillFlowMetrics.FlowTimer timer = getServiceHub().cordaService(WillFlowMetrics.class).start(getClass().getEnclosingClass().getSimpleName());
+        try {
+            WillBatchResult result = transitionBatches(timer);
+            timer.success();
+            logger.info("Will batch finalised command={} completed={} failed={} transactions={} flowId={}",
+                    command().getClass().getSimpleName(), result.getCompletedWillIds().size(), result.getFailedWillIds().size(),
+                    result.getTransactionIds().size(), getRunId().getUuid());
+            return result;
+        } catch (KilledFlowException e) {
+            //Killed on purpose, not a failure of the flow
+            throw e;
+        } catch (FlowException | RuntimeException e) {
+            timer.failure(e);
+            throw e;
+        }
+    }
+
+    @Suspendable
+    private WillBatchResult transitionBatches(WillFlowMetrics.FlowTimer timer) throws FlowException {
+        //Do an identity check to restrict the owner
+        timer.step(progresstracker, VALIDATING_OWNER, WillFlowMetrics.IDENTITY_CHECK);
+        if(!getOurIdentity().getName().getOrganisation().equalsIgnoreCase("WillCertifier")) {
+            throw new FlowException("Identity only be Will Certifier");
+        }
+
+        //Resolve all inputs at once and group them by notary and owner, wills we cannot move are reported straight away
+        timer.step(progresstracker, RETRIEVING_INPUTS, WillFlowMetrics.VAULT_LOOKUP);
+        Map<String, StateAndRef<WillState>> inputsByWillId = new LinkedHashMap<>();
+        for(StateAndRef<WillState> input : WillQueries.findUnconsumed(getServiceHub(), willIds)){
+            inputsByWillId.put(input.getState().getData().getWillId(), input);
+        }
+
+        List<String> completedWillIds = new ArrayList<>();
+        Map<String, String> failedWillIds = new LinkedHashMap<>();
+        List<SecureHash> transactionIds = new ArrayList<>();
+        Map<SecureHash, String> distributionErrors = new LinkedHashMap<>();
+
+        List<StateAndRef<WillState>> eligibleInputs = new ArrayList<>();
+        Map<List<AbstractParty>, List<StateAndRef<WillState>>> inputGroups = new LinkedHashMap<>();
+        for(String willId : new LinkedHashSet<>(willIds)){
+            StateAndRef<WillState> input = inputsByWillId.get(willId);
+            if(input == null){
+                failedWillIds.put(willId, "No unconsumed Will State found for this Will Id");
+                continue;
+            }
+            WillState willState = input.getState().getData();
+            if(!willState.getVerifier().equals(getOurIdentity())){
+                failedWillIds.put(willId, "Only the verifier of the Will can update it");
+                continue;
+            }
+            if(willState.getStatus() != requiredInputStatus()){
+                failedWillIds.put(willId, "The Will is in status " + willState.getWillStatus() + ", expected " + requiredInputStatus().getLabel());
+                continue;
+            }
+            eligibleInputs.add(input);
+        }
+
+        //Soft lock the inputs so a transition of the same wills running on this node cannot race these batches to the notary
+        //A transaction only goes to the parties of its own wills, so wills are batched with those that have the same ones
+        for(StateAndRef<WillState> input : lockInputs(eligibleInputs, failedWillIds)){
+            List<AbstractParty> groupKey = new ArrayList<>();
+            groupKey.add(input.getState().getNotary());
+            groupKey.addAll(input.getState().getData().getParticipants());
+            inputGroups.computeIfAbsent(groupKey, key -> new ArrayList<>()).add(input);
+        }
+
+        progresstracker.setCurrentStep(FINALIZING_BATCHES);
+        for(Map.Entry<List<AbstractParty>, List<StateAndRef<WillState>>> inputGroup : inputGroups.entrySet()){
+            Party notary = (Party) inputGroup.getKey().get(0);
+            List<StateAndRef<WillState>> inputs = inputGroup.getValue();
+
+            for(int from = 0; from < inputs.size(); from += batchSize){
+                List<StateAndRef<WillState>> batch = new ArrayList<>(inputs.subList(from, Math.min(inputs.size(), from + batchSize)));
+
+                timer.phase(WillFlowMetrics.TRANSACTION_BUILD);
+                TransactionBuilder txbuilder = new TransactionBuilder(notary);
+                List<String> batchWillIds = new ArrayList<>();
+                List<WillState> batchWills = new ArrayList<>();
+                for(StateAndRef<WillState> input : batch){
+                    WillState outputState = transition(input.getState().getData());
+                    txbuilder.addInputState(input);
+                    txbuilder.addOutputState(outputState, WILL_CONTRACT_ID);
+                    batchWillIds.add(input.getState().getData().getWillId());
+                    batchWills.add(input.getState().getData());
+                    batchWills.add(outputState);
+                }
+                List<Party> coVerifiers = WillParties.coVerifiers(getOurIdentity(), batchWills);
+                txbuilder.addCommand(command(), WillParties.transitionSigners(getOurIdentity(), coVerifiers));
+
+                //A failing batch is reported and does not stop the batches after it
+                SignedTransaction willTx = null;
+                try {
+                    timer.phase(WillFlowMetrics.SIGNING);
+                    willTx = getServiceHub().signInitialTransaction(txbuilder);
+                    if(!coVerifiers.isEmpty()){
+                        timer.phase(WillFlowMetrics.CO_VERIFICATION);
+                        willTx = subFlow(new CollectWillSignaturesFlow.CollectWillSignaturesFlowInitiator(willTx, coVerifiers));
+                    }
+                    timer.phase(WillFlowMetrics.COUNTERPARTY_SESSION);
+                    List<FlowSession> sessions = new ArrayList<>();
+                    for(Party counterparty : WillParties.counterparties(getOurIdentity(), batchWills)) sessions.add(initiateFlow(counterparty));
+                    timer.phase(WillFlowMetrics.FINALITY);
+                    SignedTransaction finalTx = subFlow(new WillFinalityFlow(willTx, sessions));
+                    transactionIds.add(finalTx.getId());
+                    completedWillIds.addAll(batchWillIds);
+                } catch (FlowException | IllegalArgumentException | IllegalStateException e) {
+                    //Only failures of this batch are reported and moved past, anything else (e.g. the flow being killed) ends the flow
+                    timer.countFailure(e);
+                    String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                    //The inputs are consumed once the transaction is recorded, only sending it to the other parties failed
+                    if(willTx != null && WillFinalityFlow.isRecorded(getServiceHub(), willTx.getId())){
+                        logger.warn("Will batch not distributed command={} wills={} txId={} error={} flowId={}",
+                                command().getClass().getSimpleName(), batchWillIds.size(), willTx.getId(), e.toString(), getRunId().getUuid());
+                        transactionIds.add(willTx.getId());
+                        completedWillIds.addAll(batchWillIds);
+                        distributionErrors.put(willTx.getId(), reason);
+                        continue;
+                    }
+                    logger.warn("Will batch failed command={} wills={} error={} flowId={}",
+                            command().getClass().getSimpleName(), batchWillIds.size(), e.toString(), getRunId().getUuid());
+                    batchWillIds.forEach(willId -> failedWillIds.put(willId, reason));
+                }
+            }
+        }
+        return new WillBatchResult(completedWillIds, failedWillIds, transactionIds, distributionErrors);
+    }
+
+    // Reserves the inputs for this flow, wills locked by another flow are reported as failed and left out
+    private List<StateAndRef<WillState>> lockInputs(List<StateAndRef<WillState>> inputs, Map<String, String> failedWillIds) {
+        if(inputs.isEmpty()) return inputs;
+        VaultService vaultService = getServiceHub().getVaultService();
+        UUID lockId = getRunId().getUuid();
+        try {
+            vaultService.softLockReserve(lockId, NonEmptySet.copyOf(inputs.stream().map(StateAndRef::getRef).collect(Collectors.toList())));
+            return inputs;
+        } catch (StatesNotAvailableException e) {
+            //Reserving is all or nothing, so find out one by one which of the wills are taken
+        }
+        List<StateAndRef<WillState>> locked = new ArrayList<>();
+        for(StateAndRef<WillState> input : inputs){
+            try {
+                vaultService.softLockReserve(lockId, NonEmptySet.of(input.getRef()));
+                locked.add(input);
+            } catch (StatesNotAvailableException e) {
+                failedWillIds.put(input.getState().getData().getWillId(), "The Will is being updated by another flow");
+            }
+        }
+        logger.info("Will inputs locked by other flows command={} wills={} flowId={}",
+                command().getClass().getSimpleName(), inputs.size() - locked.size(), lockId);
+        return locked;
+    }
+}
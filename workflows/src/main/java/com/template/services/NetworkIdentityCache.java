@@ -0,0 +1,128 @@
+package com.template.services;
+
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.identity.PartyAndCertificate;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.NodeInfo;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.node.services.NetworkMapCache;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-local cache of the notaries the will flows issue with and of the parties they resolve by X500 name.
+ *
+ * New wills are spread across the notaries by will id: each will id hashes to one notary of an ordered list, so
+ * every node assigns a will the same notary, and its later transitions stay on the notary of their input. The list
+ * is the "notaries" key of the CorDapp config, or the single notary of the "notary" key, or else every notary on
+ * the network map ordered by name. Both the notaries and the resolved parties are dropped when the network map
+ * reports a change to the nodes behind them, and are looked up again on next use.
+ */
+@CordaService
+public class NetworkIdentityCache extends SingletonSerializeAsToken {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkIdentityCache.class);
+    static final String NOTARY_CONFIG_KEY = "notary";
+    static final String NOTARIES_CONFIG_KEY = "notaries";
+
+    private final AppServiceHub serviceHub;
+    private final List<CordaX500Name> configuredNotaryNames;
+    private final Map<CordaX500Name, Party> partiesByName = new ConcurrentHashMap<>();
+    private volatile List<Party> notaries;
+
+    public NetworkIdentityCache(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        this.configuredNotaryNames = readConfiguredNotaryNames(serviceHub);
+        serviceHub.getNetworkMapCache().getChanged().subscribe(this::onNetworkMapChange);
+    }
+
+    private static List<CordaX500Name> readConfiguredNotaryNames(AppServiceHub serviceHub) {
+        try {
+            CordappConfig config = serviceHub.getAppContext().getConfig();
+            if (config.exists(NOTARIES_CONFIG_KEY)) {
+                List<CordaX500Name> names = new ArrayList<>();
+                for (Object name : (List<?>) config.get(NOTARIES_CONFIG_KEY)) names.add(CordaX500Name.parse(name.toString()));
+                if (!names.isEmpty()) return names;
+            }
+            if (config.exists(NOTARY_CONFIG_KEY)) return Collections.singletonList(CordaX500Name.parse(config.getString(NOTARY_CONFIG_KEY)));
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the notaries from the CorDapp config, using every notary on the network map: {}", e.toString());
+        }
+        return null;
+    }
+
+    /**
+     * The notary a new will with the given id is issued with. The same will id always gets the same notary for as
+     * long as the notary list does not change.
+     */
+    public Party notaryFor(String willId) {
+        List<Party> current = getNotaries();
+        // String.hashCode is fixed by the language spec, so every node and every run agrees on it
+        return current.get(Math.floorMod(willId.hashCode(), current.size()));
+    }
+
+    /**
+     * The notaries new wills are spread across, in assignment order.
+     */
+    public List<Party> getNotaries() {
+        List<Party> current = notaries;
+        if (current != null) return current;
+
+        NetworkMapCache networkMapCache = serviceHub.getNetworkMapCache();
+        if (configuredNotaryNames != null) {
+            current = new ArrayList<>();
+            for (CordaX500Name name : configuredNotaryNames) {
+                Party notary = networkMapCache.getNotary(name);
+                if (notary == null) throw new IllegalStateException("Configured notary " + name + " is not on the network map");
+                current.add(notary);
+            }
+        } else {
+            current = new ArrayList<>(networkMapCache.getNotaryIdentities());
+            if (current.isEmpty()) throw new IllegalStateException("There is no notary on the network map");
+            //The network map returns the notaries in no particular order, all nodes have to agree on it
+            current.sort(Comparator.comparing(notary -> notary.getName().toString()));
+        }
+        current = Collections.unmodifiableList(current);
+        notaries = current;
+        return current;
+    }
+
+    /**
+     * The well-known party with the given name, or null when the network does not know it.
+     */
+    public Party wellKnownParty(CordaX500Name name) {
+        Party party = partiesByName.get(name);
+        if (party != null) return party;
+
+        party = serviceHub.getIdentityService().wellKnownPartyFromX500Name(name);
+        // Unknown names are not cached so a node that joins later is found
+        if (party != null) partiesByName.put(name, party);
+        return party;
+    }
+
+    private void onNetworkMapChange(NetworkMapCache.MapChange change) {
+        forget(change.getNode());
+        if (change instanceof NetworkMapCache.MapChange.Modified) {
+            forget(((NetworkMapCache.MapChange.Modified) change).getPreviousNode());
+        }
+    }
+
+    private void forget(NodeInfo node) {
+        for (PartyAndCertificate identity : node.getLegalIdentitiesAndCerts()) {
+            partiesByName.remove(identity.getName());
+            List<Party> current = notaries;
+            if (current != null && current.stream().anyMatch(notary -> notary.getName().equals(identity.getName()))) notaries = null;
+        }
+        // A notary that joined may be one of the configured ones, or may join the list taken from the network map
+        if (notaries != null && configuredNotaryNames == null) notaries = null;
+    }
+}
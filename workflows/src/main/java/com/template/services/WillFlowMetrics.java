@@ -0,0 +1,128 @@
+package com.template.services;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jmx.JmxReporter;
+import kotlin.Unit;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import net.corda.core.utilities.ProgressTracker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and failure counters of the will flows, published over the node's JMX under the com.template.flows domain.
+ *
+ * Every flow run is timed as a whole ({flow}.total, or {flow}.failed when it fails) and per phase ({flow}.{phase}),
+ * so the time spent in the vault, signing, with the counterparty and in notarisation can be told apart. Failures are
+ * counted per flow ({flow}.failures), per exception type ({flow}.failures.{exception}) and per phase they happened in
+ * ({flow}.failures.phase.{phase}).
+ */
+@CordaService
+public class WillFlowMetrics extends SingletonSerializeAsToken {
+    public static final String JMX_DOMAIN = "com.template.flows";
+
+    // Phases of a will flow, each timed separately
+    public static final String IDENTITY_CHECK = "identityCheck";
+    public static final String WILL_ID_CHECK = "willIdCheck";
+    public static final String NOTARY_LOOKUP = "notaryLookup";
+    public static final String VAULT_LOOKUP = "vaultLookup";
+    public static final String TRANSACTION_BUILD = "transactionBuild";
+    public static final String SIGNING = "signing";
+    public static final String CO_VERIFICATION = "coVerification";
+    public static final String COUNTERPARTY_SESSION = "counterpartySession";
+    public static final String FINALITY = "finality";
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private final JmxReporter reporter;
+
+    public WillFlowMetrics(AppServiceHub serviceHub) {
+        reporter = JmxReporter.forRegistry(registry)
+                .inDomain(JMX_DOMAIN)
+                .convertDurationsTo(TimeUnit.MILLISECONDS)
+                .build();
+        reporter.start();
+        // Unregister the MBeans when the node stops, so a node restarted in the same JVM can register them again
+        serviceHub.registerUnloadHandler(() -> {
+            reporter.stop();
+            return Unit.INSTANCE;
+        });
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Starts timing a run of the named flow.
+     */
+    public FlowTimer start(String flowName) {
+        return new FlowTimer(this, flowName);
+    }
+
+    private void recordPhase(String flowName, String phase, long nanos) {
+        // A flow restored from a checkpoint after a restart has no meaningful start time
+        if (nanos >= 0) registry.timer(flowName + "." + phase).update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordFailure(String flowName, String phase, Throwable error) {
+        registry.counter(flowName + ".failures").inc();
+        registry.counter(flowName + ".failures." + error.getClass().getSimpleName()).inc();
+        if (phase != null) registry.counter(flowName + ".failures.phase." + phase).inc();
+    }
+
+    /**
+     * Times the phases of one flow run. It only holds the start times and the current phase, so it is checkpointed
+     * with the flow, and the service itself is checkpointed as a token.
+     */
+    public static final class FlowTimer {
+        private final WillFlowMetrics metrics;
+        private final String flowName;
+        private final long flowStart;
+        private String phase;
+        private long phaseStart;
+
+        private FlowTimer(WillFlowMetrics metrics, String flowName) {
+            this.metrics = metrics;
+            this.flowName = flowName;
+            this.flowStart = System.nanoTime();
+        }
+
+        // Moves the progress tracker to the step and starts timing it as the given phase
+        public void step(ProgressTracker progressTracker, ProgressTracker.Step step, String phase) {
+            progressTracker.setCurrentStep(step);
+            phase(phase);
+        }
+
+        // Ends the current phase and starts timing the next one
+        public void phase(String phase) {
+            long now = System.nanoTime();
+            endPhase(now);
+            this.phase = phase;
+            this.phaseStart = now;
+        }
+
+        // Counts a failure in the current phase that the flow recovers from, e.g. a failed batch
+        public void countFailure(Throwable error) {
+            metrics.recordFailure(flowName, phase, error);
+        }
+
+        public void success() {
+            long now = System.nanoTime();
+            endPhase(now);
+            metrics.recordPhase(flowName, "total", now - flowStart);
+        }
+
+        public void failure(Throwable error) {
+            countFailure(error);
+            long now = System.nanoTime();
+            endPhase(now);
+            metrics.recordPhase(flowName, "failed", now - flowStart);
+        }
+
+        private void endPhase(long now) {
+            if (phase != null) metrics.recordPhase(flowName, phase, now - phaseStart);
+            phase = null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.template.services;
+
+import com.template.flows.WillQueries;
+import com.template.states.WillState;
+import net.corda.core.contracts.ContractState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.node.services.ServiceLifecycleEvent;
+import net.corda.core.node.services.Vault;
+import net.corda.core.node.services.vault.PageSpecification;
+import net.corda.core.node.services.vault.QueryCriteria;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static net.corda.core.node.AppServiceHub.SERVICE_PRIORITY_NORMAL;
+
+/**
+ * Node-local index of the will ids held unconsumed in the vault, used to reject duplicate will ids at issuance.
+ *
+ * The index is seeded from the vault once the node has started and kept current from vault updates. An id that is
+ * not in the index is known to be free without touching the database; an id that is in the index (or any id asked
+ * about before seeding finishes) is confirmed with the indexed will_id query.
+ */
+@CordaService
+public class WillIdRegistry extends SingletonSerializeAsToken {
+    private static final Logger logger = LoggerFactory.getLogger(WillIdRegistry.class);
+    private static final int SEED_PAGE_SIZE = 1000;
+
+    private final AppServiceHub serviceHub;
+    // Will ids of unconsumed WillStates in the vault
+    private final Set<String> liveWillIds = ConcurrentHashMap.newKeySet();
+    // Will ids currently being issued by a flow on this node
+    private final Set<String> reservedWillIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean seeded = false;
+
+    public WillIdRegistry(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        serviceHub.register(SERVICE_PRIORITY_NORMAL, this::onServiceLifecycleEvent);
+    }
+
+    private void onServiceLifecycleEvent(ServiceLifecycleEvent event) {
+        if (event == ServiceLifecycleEvent.STATE_MACHINE_STARTED) {
+            // Subscribe before seeding so no update is missed while the vault is being paged through
+            serviceHub.getVaultService().getUpdates().subscribe(this::onVaultUpdate);
+            seed();
+        }
+    }
+
+    private void seed() {
+        QueryCriteria unconsumed = new QueryCriteria.VaultQueryCriteria(Vault.StateStatus.UNCONSUMED);
+        int pageNumber = 1;
+        List<StateAndRef<WillState>> page;
+        do {
+            page = serviceHub.getVaultService()
+                    .queryBy(WillState.class, unconsumed, new PageSpecification(pageNumber++, SEED_PAGE_SIZE))
+                    .getStates();
+            page.forEach(stateAndRef -> liveWillIds.add(stateAndRef.getState().getData().getWillId()));
+        } while (page.size() == SEED_PAGE_SIZE);
+        seeded = true;
+        logger.info("Will id registry seeded with {} will ids", liveWillIds.size());
+    }
+
+    private void onVaultUpdate(Vault.Update<ContractState> update) {
+        Set<String> produced = new HashSet<>();
+        update.getProduced().forEach(stateAndRef -> {
+            if (stateAndRef.getState().getData() instanceof WillState) {
+                produced.add(((WillState) stateAndRef.getState().getData()).getWillId());
+            }
+        });
+        update.getConsumed().forEach(stateAndRef -> {
+            if (stateAndRef.getState().getData() instanceof WillState) {
+                String willId = ((WillState) stateAndRef.getState().getData()).getWillId();
+                // A transition consumes and re-issues the same will id, so only drop ids that were not re-issued
+                if (!produced.contains(willId)) liveWillIds.remove(willId);
+            }
+        });
+        liveWillIds.addAll(produced);
+        reservedWillIds.removeAll(produced);
+    }
+
+    /**
+     * Whether an unconsumed WillState with this id exists. Answers from memory when the id is unknown and falls back
+     * to the indexed vault query otherwise.
+     */
+    public boolean exists(String willId) {
+        if (seeded && !liveWillIds.contains(willId)) return false;
+        return WillQueries.findUnconsumed(serviceHub, willId) != null;
+    }
+
+    /**
+     * Claims the will id for issuance. Returns false if the id is already in the vault or being issued by another
+     * flow. The claim is dropped automatically once the issued state reaches the vault, or by {@link #release}.
+     */
+    public boolean tryReserve(String willId) {
+        if (!reservedWillIds.add(willId)) return false;
+        if (exists(willId)) {
+            reservedWillIds.remove(willId);
+            return false;
+        }
+        return true;
+    }
+
+    // Drops a claim taken with tryReserve when the issuance did not go through
+    public void release(String willId) {
+        reservedWillIds.remove(willId);
+    }
+}
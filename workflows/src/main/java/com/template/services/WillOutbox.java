@@ -0,0 +1,254 @@
+package com.template.services;
+
+import com.template.flows.SubmitWillFlow;
+import com.template.flows.WillQueries;
+import com.template.services.WillOutboxSchemaV1.PersistentSubmission;
+import com.template.states.WillState;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.cordapp.CordappConfig;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.AppServiceHub;
+import net.corda.core.node.services.CordaService;
+import net.corda.core.node.services.ServiceLifecycleEvent;
+import net.corda.core.serialization.SingletonSerializeAsToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import static net.corda.core.node.AppServiceHub.SERVICE_PRIORITY_NORMAL;
+
+/**
+ * Durable outbox of wills submitted for asynchronous issuance with SubmitWillFlow.
+ *
+ * A submission is a row of the will_outbox table, written in the transaction of the submitting flow, so it is stored
+ * before the caller hears back and survives a node restart. Once the node has started, a poller hands queued rows to
+ * IssueSubmittedWillFlow, with at most outboxWorkers submissions running at a time. Each flow claims its row by moving
+ * it from QUEUED to RUNNING under its run id, issues the will, and records COMPLETED with the transaction id or FAILED
+ * with the error. Those updates commit with the flow's checkpoints, so a flow that was running when the node stopped
+ * finishes its row when it is restored.
+ *
+ * The running rows in the table are what count against outboxWorkers, so restored flows are counted too. A row that
+ * has been RUNNING for longer than outboxClaimTimeoutSeconds belongs to a flow that was killed or is stuck in the flow
+ * hospital: it is completed if the will made it to the ledger, and queued again otherwise. The will id can only be
+ * issued once on the node, so a stuck flow that resumes later cannot issue the will a second time.
+ */
+@CordaService
+public class WillOutbox extends SingletonSerializeAsToken {
+    private static final Logger logger = LoggerFactory.getLogger(WillOutbox.class);
+
+    // Status of a submission
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    // CorDapp config keys of the worker pool
+    static final String WORKERS = "outboxWorkers";
+    static final String POLL_MILLIS = "outboxPollMillis";
+    static final String CLAIM_TIMEOUT_SECONDS = "outboxClaimTimeoutSeconds";
+
+    // Stale rows recovered per poll, so a backlog of them does not hold up dispatching
+    private static final int RECOVERY_BATCH = 100;
+
+    private final AppServiceHub serviceHub;
+    private final int workers;
+    private final long pollMillis;
+    private final Duration claimTimeout;
+    // Submissions handed to a flow that has not claimed them yet, with when they were handed out
+    private final Map<String, Instant> dispatched = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "will-outbox");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WillOutbox(AppServiceHub serviceHub) {
+        this.serviceHub = serviceHub;
+        CordappConfig config = serviceHub.getAppContext().getConfig();
+        this.workers = config.exists(WORKERS) ? config.getInt(WORKERS) : 4;
+        this.pollMillis = config.exists(POLL_MILLIS) ? config.getLong(POLL_MILLIS) : 200;
+        this.claimTimeout = Duration.ofSeconds(config.exists(CLAIM_TIMEOUT_SECONDS) ? config.getLong(CLAIM_TIMEOUT_SECONDS) : 600);
+        serviceHub.register(SERVICE_PRIORITY_NORMAL, this::onServiceLifecycleEvent);
+    }
+
+    private void onServiceLifecycleEvent(ServiceLifecycleEvent event) {
+        //Flows can only be started once the state machine is up
+        if (event == ServiceLifecycleEvent.STATE_MACHINE_STARTED) {
+            poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+            logger.info("Will outbox started workers={} pollMillis={} claimTimeout={}", workers, pollMillis, claimTimeout);
+        }
+    }
+
+    /**
+     * Queues a will for issuance under the request id. Called by SubmitWillFlow, the row is stored when its
+     * transaction commits.
+     */
+    public void submit(String requestId, String willId, String willType, String willDetails, CordaX500Name verifier) {
+        PersistentSubmission submission = new PersistentSubmission(requestId, willId, willType, willDetails, verifier.toString(), QUEUED, Instant.now());
+        serviceHub.withEntityManager((EntityManager entityManager) -> {
+            entityManager.persist(submission);
+        });
+    }
+
+    // The submission with the request id, or null when there is none
+    public PersistentSubmission find(String requestId) {
+        return serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.find(PersistentSubmission.class, requestId));
+    }
+
+    /**
+     * Moves the submission from QUEUED to RUNNING under the flow's run id and returns it, or returns null when it is
+     * not queued, e.g. because another flow has already claimed it.
+     */
+    public PersistentSubmission claim(String requestId, String flowId) {
+        int updated = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "UPDATE PersistentSubmission s SET s.status = :running, s.claimedBy = :flowId, s.updatedAt = :now "
+                        + "WHERE s.requestId = :requestId AND s.status = :queued")
+                .setParameter("running", RUNNING)
+                .setParameter("flowId", flowId)
+                .setParameter("now", Instant.now())
+                .setParameter("requestId", requestId)
+                .setParameter("queued", QUEUED)
+                .executeUpdate());
+        return updated == 1 ? find(requestId) : null;
+    }
+
+    /**
+     * Records the transaction that issued the will. The will is on the ledger, so this holds even if the row was
+     * recovered and claimed by another flow in the meantime.
+     */
+    public void complete(String requestId, String transactionId) {
+        int updated = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "UPDATE PersistentSubmission s SET s.status = :completed, s.transactionId = :transactionId, s.error = null, s.updatedAt = :now "
+                        + "WHERE s.requestId = :requestId AND s.status <> :completed")
+                .setParameter("completed", COMPLETED)
+                .setParameter("transactionId", transactionId)
+                .setParameter("now", Instant.now())
+                .setParameter("requestId", requestId)
+                .executeUpdate());
+        if (updated == 0) logger.debug("Will submission already completed requestId={}", requestId);
+    }
+
+    /**
+     * Records why the will could not be issued, unless the row has been recovered from the flow in the meantime.
+     */
+    public void fail(String requestId, String flowId, String error) {
+        int updated = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "UPDATE PersistentSubmission s SET s.status = :failed, s.error = :error, s.updatedAt = :now "
+                        + "WHERE s.requestId = :requestId AND s.status = :running AND s.claimedBy = :flowId")
+                .setParameter("failed", FAILED)
+                .setParameter("error", error != null && error.length() > 1024 ? error.substring(0, 1024) : error)
+                .setParameter("now", Instant.now())
+                .setParameter("requestId", requestId)
+                .setParameter("running", RUNNING)
+                .setParameter("flowId", flowId)
+                .executeUpdate());
+        if (updated == 0) logger.info("Will submission no longer claimed by the failing flow requestId={} flowId={}", requestId, flowId);
+    }
+
+    /**
+     * The id of the transaction that issued the submitted will, or null when the vault holds no request of the will id
+     * by this node recorded since the submission was made.
+     */
+    public String issuanceTransaction(PersistentSubmission submission) {
+        CordaX500Name owner = serviceHub.getMyInfo().getLegalIdentities().get(0).getName();
+        StateAndRef<WillState> issuance = WillQueries.findIssuance(serviceHub, submission.getWillId(), owner, submission.getCreatedAt());
+        return issuance != null ? issuance.getRef().getTxhash().toString() : null;
+    }
+
+    private void poll() {
+        try {
+            recoverStale();
+            dispatchQueued();
+        } catch (RuntimeException e) {
+            //Keep polling, the submissions stay queued until they can be handed out
+            logger.warn("Will outbox poll failed error={}", e.toString());
+        }
+    }
+
+    // Completes or re-queues the rows whose flows have not reported back within the claim timeout
+    private void recoverStale() {
+        Instant staleBefore = Instant.now().minus(claimTimeout);
+        List<PersistentSubmission> stale = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "SELECT s FROM PersistentSubmission s WHERE s.status = :running AND s.updatedAt < :staleBefore ORDER BY s.updatedAt",
+                PersistentSubmission.class)
+                .setParameter("running", RUNNING)
+                .setParameter("staleBefore", staleBefore)
+                .setMaxResults(RECOVERY_BATCH)
+                .getResultList());
+        for (PersistentSubmission submission : stale) {
+            String transactionId = issuanceTransaction(submission);
+            boolean recovered = transactionId != null
+                    ? recover(submission, COMPLETED, transactionId)
+                    : recover(submission, QUEUED, null);
+            if (recovered) {
+                logger.warn("Will submission recovered from a stalled flow requestId={} flowId={} status={}",
+                        submission.getRequestId(), submission.getClaimedBy(), transactionId != null ? COMPLETED : QUEUED);
+            }
+        }
+    }
+
+    // Takes the row away from the flow that claimed it, if that flow has not moved it on in the meantime
+    private boolean recover(PersistentSubmission submission, String to, String transactionId) {
+        int updated = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "UPDATE PersistentSubmission s SET s.status = :to, s.claimedBy = null, s.transactionId = :transactionId, s.updatedAt = :now "
+                        + "WHERE s.requestId = :requestId AND s.status = :running AND s.claimedBy = :flowId")
+                .setParameter("to", to)
+                .setParameter("transactionId", transactionId)
+                .setParameter("now", Instant.now())
+                .setParameter("requestId", submission.getRequestId())
+                .setParameter("running", RUNNING)
+                .setParameter("flowId", submission.getClaimedBy())
+                .executeUpdate());
+        return updated == 1;
+    }
+
+    // Hands the oldest queued submissions to flows, as many as there are workers without a running row
+    private void dispatchQueued() {
+        long running = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "SELECT COUNT(s) FROM PersistentSubmission s WHERE s.status = :running", Long.class)
+                .setParameter("running", RUNNING)
+                .getSingleResult());
+
+        //A handed out submission counts as running until its flow has claimed it. One whose flow never got to claim it
+        //within the timeout is handed out again, the conditional claim keeps a late flow from issuing it twice
+        if (!dispatched.isEmpty()) {
+            List<String> unclaimed = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                    "SELECT s.requestId FROM PersistentSubmission s WHERE s.requestId IN :requestIds AND s.status = :queued", String.class)
+                    .setParameter("requestIds", new ArrayList<>(dispatched.keySet()))
+                    .setParameter("queued", QUEUED)
+                    .getResultList());
+            Instant staleBefore = Instant.now().minus(claimTimeout);
+            dispatched.entrySet().removeIf(entry -> !unclaimed.contains(entry.getKey()) || entry.getValue().isBefore(staleBefore));
+        }
+
+        int free = (int) Math.max(0, workers - running - dispatched.size());
+        if (free == 0) return;
+        List<String> queued = serviceHub.withEntityManager((EntityManager entityManager) -> entityManager.createQuery(
+                "SELECT s.requestId FROM PersistentSubmission s WHERE s.status = :queued ORDER BY s.createdAt", String.class)
+                .setParameter("queued", QUEUED)
+                .setMaxResults(free + dispatched.size())
+                .getResultList());
+        for (String requestId : queued) {
+            if (free == 0) return;
+            if (dispatched.putIfAbsent(requestId, Instant.now()) != null) continue;
+            try {
+                serviceHub.startFlow(new SubmitWillFlow.IssueSubmittedWillFlow(requestId));
+                free--;
+            } catch (RuntimeException e) {
+                dispatched.remove(requestId);
+                throw e;
+            }
+        }
+    }
+}
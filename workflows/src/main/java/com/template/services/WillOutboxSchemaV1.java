@@ -0,0 +1,79 @@
+package com.template.services;
+
+import net.corda.core.schemas.MappedSchema;
+import org.jetbrains.annotations.Nullable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.Collections;
+
+/**
+ * The will_outbox table of WillOutbox: one row per will submitted for asynchronous issuance, with its progress.
+ */
+public class WillOutboxSchemaV1 extends MappedSchema {
+
+    /* The family of schemas for the will outbox. */
+    public static class WillOutboxSchema {}
+
+    public WillOutboxSchemaV1() {
+        super(WillOutboxSchema.class, 1, Collections.singletonList(PersistentSubmission.class));
+    }
+
+    @Nullable
+    @Override
+    public String getMigrationResource() {
+        return "will-outbox.changelog-master";
+    }
+
+    @Entity
+    @Table(name = "will_outbox", indexes = {
+            @Index(name = "will_outbox_status_idx", columnList = "status, created_at"),
+            @Index(name = "will_outbox_claim_idx", columnList = "status, updated_at")
+    })
+    public static class PersistentSubmission {
+        @Id @Column(name = "request_id", nullable = false) private String requestId;
+        @Column(name = "will_id", nullable = false) private String willId;
+        @Column(name = "will_type") private String willType;
+        @Lob @Column(name = "will_details") private String willDetails;
+        @Column(name = "verifier", nullable = false) private String verifier;
+        @Column(name = "status", nullable = false) private String status;
+        // Run id of the flow that claimed the submission, it is the only flow that may fail it
+        @Column(name = "claimed_by") private String claimedBy;
+        @Column(name = "transaction_id") private String transactionId;
+        @Column(name = "error", length = 1024) private String error;
+        @Column(name = "created_at", nullable = false) private Instant createdAt;
+        @Column(name = "updated_at", nullable = false) private Instant updatedAt;
+
+        public PersistentSubmission(String requestId, String willId, String willType, String willDetails, String verifier,
+                                    String status, Instant createdAt) {
+            this.requestId = requestId;
+            this.willId = willId;
+            this.willType = willType;
+            this.willDetails = willDetails;
+            this.verifier = verifier;
+            this.status = status;
+            this.createdAt = createdAt;
+            this.updatedAt = createdAt;
+        }
+
+        // Default constructor required by hibernate.
+        public PersistentSubmission() {}
+
+        public String getRequestId() { return requestId; }
+        public String getWillId() { return willId; }
+        public String getWillType() { return willType; }
+        public String getWillDetails() { return willDetails; }
+        public String getVerifier() { return verifier; }
+        public String getStatus() { return status; }
+        public String getClaimedBy() { return claimedBy; }
+        public String getTransactionId() { return transactionId; }
+        public String getError() { return error; }
+        public Instant getCreatedAt() { return createdAt; }
+        public Instant getUpdatedAt() { return updatedAt; }
+    }
+}
@@ -0,0 +1,102 @@
+package com.template.flows;
+
+import com.template.flows.RequestWillBatchFlow.WillRequest;
+import com.template.services.NetworkIdentityCache;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.testing.node.MockNetworkNotarySpec;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.TestCordapp;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.template.flows.WillTestNetwork.WILL_TYPE;
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+
+public class NotaryShardingTests {
+    private static final CordaX500Name NOTARY_A = new CordaX500Name("NotaryA", "London", "GB");
+    private static final CordaX500Name NOTARY_B = new CordaX500Name("NotaryB", "London", "GB");
+
+    private WillTestNetwork wills;
+
+    private static MockNetworkParameters twoNotaries() {
+        return new MockNetworkParameters().withNotarySpecs(Arrays.asList(new MockNetworkNotarySpec(NOTARY_A), new MockNetworkNotarySpec(NOTARY_B)));
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private Party notaryOf(String willId) {
+        return unconsumed(wills.owner, willId).getState().getNotary();
+    }
+
+    @Test
+    public void willsAreSpreadAcrossTheNotariesByWillId() throws Exception {
+        wills = new WillTestNetwork(twoNotaries());
+        NetworkIdentityCache cache = wills.owner.getServices().cordaService(NetworkIdentityCache.class);
+        assertEquals(Arrays.asList(NOTARY_A, NOTARY_B), Arrays.asList(cache.getNotaries().get(0).getName(), cache.getNotaries().get(1).getName()));
+
+        Set<Party> used = new HashSet<>();
+        for (int i = 1; i <= 6; i++) {
+            wills.requestWill("WILL-" + i, "Will details");
+            assertEquals(cache.notaryFor("WILL-" + i), notaryOf("WILL-" + i));
+            used.add(notaryOf("WILL-" + i));
+        }
+        assertEquals(2, used.size());
+        //Every node assigns a will id the same notary
+        NetworkIdentityCache certifierCache = wills.certifier.getServices().cordaService(NetworkIdentityCache.class);
+        for (int i = 1; i <= 6; i++) assertEquals(cache.notaryFor("WILL-" + i), certifierCache.notaryFor("WILL-" + i));
+    }
+
+    @Test
+    public void transitionStaysOnTheNotaryOfItsInput() throws Exception {
+        wills = new WillTestNetwork(twoNotaries());
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+        Party first = notaryOf("WILL-1");
+        Party second = notaryOf("WILL-2");
+
+        wills.validateBeneficiary("WILL-1");
+        wills.run(wills.certifier, new BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator(Collections.singletonList("WILL-2")));
+
+        assertEquals(first, notaryOf("WILL-1"));
+        assertEquals(second, notaryOf("WILL-2"));
+    }
+
+    @Test
+    public void batchSpanningTwoNotariesIsIssuedPerNotary() throws Exception {
+        wills = new WillTestNetwork(twoNotaries());
+        List<WillRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) requests.add(new WillRequest("WILL-" + i, WILL_TYPE, "Will details"));
+
+        WillBatchResult result = wills.run(wills.owner, new RequestWillBatchFlow.RequestWillBatchFlowInitiator(requests, party(wills.certifier)));
+
+        assertEquals(4, result.getCompletedWillIds().size());
+        assertEquals(2, result.getTransactionIds().size());
+        NetworkIdentityCache cache = wills.owner.getServices().cordaService(NetworkIdentityCache.class);
+        for (int i = 1; i <= 4; i++) assertEquals(cache.notaryFor("WILL-" + i), notaryOf("WILL-" + i));
+    }
+
+    @Test
+    public void configuredNotaryIsUsedForEveryWill() throws Exception {
+        wills = new WillTestNetwork(twoNotaries().withCordappsForAllNodes(Arrays.asList(
+                TestCordapp.findCordapp("com.template.contracts"),
+                TestCordapp.findCordapp("com.template.flows").withConfig(Collections.singletonMap("notary", NOTARY_B.toString())))));
+
+        for (int i = 1; i <= 4; i++) {
+            wills.requestWill("WILL-" + i, "Will details");
+            assertEquals(NOTARY_B, notaryOf("WILL-" + i).getName());
+        }
+    }
+}
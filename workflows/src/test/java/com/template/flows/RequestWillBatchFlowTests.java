@@ -0,0 +1,160 @@
+package com.template.flows;
+
+import com.template.flows.RequestWillBatchFlow.WillRequest;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import com.template.states.WillType;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.transactions.SignedTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.template.flows.WillTestNetwork.WILL_TYPE;
+import static com.template.flows.WillTestNetwork.longDetails;
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestWillBatchFlowTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private static List<WillRequest> requests(int count) {
+        List<WillRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= count; i++) requests.add(new WillRequest("WILL-" + i, WILL_TYPE, "Will details " + i));
+        return requests;
+    }
+
+    private WillBatchResult requestBatch(List<WillRequest> requests, int batchSize) throws Exception {
+        return wills.run(wills.owner, new RequestWillBatchFlow.RequestWillBatchFlowInitiator(requests, party(wills.certifier), batchSize));
+    }
+
+    @Test
+    public void requestsAreIssuedInBatchesOfTheBatchSize() throws Exception {
+        WillBatchResult result = requestBatch(requests(5), 2);
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2", "WILL-3", "WILL-4", "WILL-5")), new HashSet<>(result.getCompletedWillIds()));
+        assertTrue(result.getFailedWillIds().isEmpty());
+        assertTrue(result.getDistributionErrors().isEmpty());
+        //The mock network has a single notary, so every batch is one transaction
+        assertEquals(3, result.getTransactionIds().size());
+        for (int i = 1; i <= 5; i++) {
+            WillState will = unconsumed(wills.certifier, "WILL-" + i).getState().getData();
+            assertEquals(WillStatus.VERIFICATION_REQUESTED, will.getStatus());
+            assertEquals(party(wills.owner), will.getOwner());
+            assertEquals(party(wills.certifier), will.getVerifier());
+        }
+    }
+
+    @Test
+    public void batchTransactionIssuesEveryWillOfTheBatch() throws Exception {
+        WillBatchResult result = requestBatch(requests(3), 10);
+
+        assertEquals(1, result.getTransactionIds().size());
+        SignedTransaction batchTx = wills.owner.transaction(() ->
+                wills.owner.getServices().getValidatedTransactions().getTransaction(result.getTransactionIds().get(0)));
+        assertNotNull(batchTx);
+        assertEquals(3, batchTx.getTx().outputsOfType(WillState.class).size());
+    }
+
+    @Test
+    public void willsWithDifferentLongDetailsAreIssuedInOneBatch() throws Exception {
+        String first = longDetails("WILL-1");
+        String second = longDetails("WILL-2");
+        String shared = longDetails("Shared");
+        WillBatchResult result = requestBatch(Arrays.asList(
+                new WillRequest("WILL-1", WILL_TYPE, first),
+                new WillRequest("WILL-2", WILL_TYPE, second),
+                new WillRequest("WILL-3", WILL_TYPE, shared),
+                new WillRequest("WILL-4", WILL_TYPE, shared)), 10);
+
+        assertEquals(4, result.getCompletedWillIds().size());
+        assertTrue(result.getFailedWillIds().isEmpty());
+        assertEquals(1, result.getTransactionIds().size());
+        //Each distinct details is one attachment, wills with the same details share theirs
+        SignedTransaction batchTx = wills.owner.transaction(() ->
+                wills.owner.getServices().getValidatedTransactions().getTransaction(result.getTransactionIds().get(0)));
+        assertEquals(3, batchTx.getTx().getAttachments().stream()
+                .filter(id -> batchTx.getTx().outputsOfType(WillState.class).stream().anyMatch(will -> id.equals(will.getWillDetailsAttachment())))
+                .count());
+        assertEquals(first, wills.run(wills.certifier, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-1")));
+        assertEquals(second, wills.run(wills.certifier, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-2")));
+        assertEquals(shared, wills.run(wills.certifier, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-4")));
+    }
+
+    @Test
+    public void willWithAnInvalidTypeIsReportedAndTheRestIssued() throws Exception {
+        List<WillRequest> requests = requests(2);
+        requests.add(new WillRequest("WILL-3", "Napkin Will", "Will details 3"));
+        WillBatchResult result = requestBatch(requests, 10);
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2")), new HashSet<>(result.getCompletedWillIds()));
+        assertEquals(Collections.singletonMap("WILL-3", WillType.INVALID_TYPE_MESSAGE), result.getFailedWillIds());
+        assertNull(unconsumed(wills.owner, "WILL-3"));
+    }
+
+    @Test
+    public void willWithAnUnknownBeneficiaryIsReportedAndTheRestIssued() throws Exception {
+        List<WillRequest> requests = requests(1);
+        requests.add(new WillRequest("WILL-2", WILL_TYPE, "Will details 2",
+                Collections.singletonList(new CordaX500Name("Nobody", "London", "GB")), Collections.emptyList()));
+        WillBatchResult result = requestBatch(requests, 10);
+
+        assertEquals(Collections.singletonList("WILL-1"), result.getCompletedWillIds());
+        assertTrue(result.getFailedWillIds().get("WILL-2"), result.getFailedWillIds().get("WILL-2").contains("Unknown beneficiary"));
+    }
+
+    @Test
+    public void alreadyIssuedWillIdIsReportedAndTheRestIssued() throws Exception {
+        wills.requestWill("WILL-2", "Will details");
+        WillBatchResult result = requestBatch(requests(3), 10);
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-3")), new HashSet<>(result.getCompletedWillIds()));
+        assertEquals(Collections.singleton("WILL-2"), result.getFailedWillIds().keySet());
+        assertTrue(result.getFailedWillIds().get("WILL-2").contains("already exists"));
+        assertEquals("Will details", unconsumed(wills.owner, "WILL-2").getState().getData().getWillDetails());
+    }
+
+    @Test
+    public void willIdRequestedTwiceInTheBatchIsReportedAndNotIssued() throws Exception {
+        List<WillRequest> requests = requests(3);
+        requests.add(new WillRequest("WILL-2", WILL_TYPE, "Other details"));
+        WillBatchResult result = requestBatch(requests, 2);
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-3")), new HashSet<>(result.getCompletedWillIds()));
+        assertEquals(Collections.singletonMap("WILL-2", "The Will Id is requested more than once in the batch"), result.getFailedWillIds());
+        assertNull(unconsumed(wills.owner, "WILL-2"));
+        //The will id was never reserved, so it can still be requested on its own
+        assertNotNull(wills.requestWill("WILL-2", "Will details"));
+    }
+
+    @Test
+    public void batchWillsReachTheirBeneficiaries() throws Exception {
+        List<WillRequest> requests = requests(1);
+        requests.add(new WillRequest("WILL-2", WILL_TYPE, "Will details 2",
+                Collections.singletonList(wills.beneficiary.getInfo().getLegalIdentities().get(0).getName()), Collections.emptyList()));
+        requestBatch(requests, 10);
+
+        assertNull(unconsumed(wills.beneficiary, "WILL-1"));
+        assertNotNull(unconsumed(wills.beneficiary, "WILL-2"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.template.flows;
+
+import com.template.flows.SearchVaultFlow.SearchVaultFlowInitiator;
+import com.template.flows.SearchVaultFlow.WillSearchFilter;
+import com.template.flows.SearchVaultFlow.WillSearchPage;
+import com.template.flows.SearchVaultFlow.WillSummary;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.node.services.Vault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.template.flows.WillTestNetwork.party;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SearchVaultFlowTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private WillSearchPage search(WillSearchFilter filter, int pageNumber, int pageSize) throws Exception {
+        return wills.run(wills.owner, new SearchVaultFlowInitiator(filter, pageNumber, pageSize));
+    }
+
+    private static List<String> willIds(WillSearchPage page) {
+        return page.getResults().stream().map(WillSummary::getWillId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchPagesThroughEveryWill() throws Exception {
+        for (int i = 1; i <= 5; i++) wills.requestWill("WILL-" + i, "Will details");
+
+        Set<String> found = new HashSet<>();
+        Integer pageNumber = 1;
+        int pages = 0;
+        while (pageNumber != null) {
+            WillSearchPage page = search(WillSearchFilter.all(), pageNumber, 2);
+            assertEquals(5, page.getTotalResults());
+            found.addAll(willIds(page));
+            pageNumber = page.getNextPage();
+            pages++;
+        }
+        assertEquals(3, pages);
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2", "WILL-3", "WILL-4", "WILL-5")), found);
+    }
+
+    @Test
+    public void searchFiltersOnTheWillStatus() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+        wills.validateBeneficiary("WILL-1");
+
+        WillSearchPage validated = search(new WillSearchFilter(Vault.StateStatus.UNCONSUMED, null, "Validated Beneficiary", null, null), 1, 10);
+        assertEquals(Collections.singletonList("WILL-1"), willIds(validated));
+        assertEquals("Validated Beneficiary", validated.getResults().get(0).getWillStatus());
+        assertFalse(validated.getResults().get(0).isConsumed());
+
+        //The consumed issuance of WILL-1 is still found when consumed states are asked for
+        WillSearchPage requested = search(new WillSearchFilter(Vault.StateStatus.ALL, null, "Verification Requested", null, null), 1, 10);
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2")), new HashSet<>(willIds(requested)));
+        assertEquals(1, requested.getResults().stream().filter(WillSummary::isConsumed).count());
+        assertNull(requested.getNextPage());
+    }
+
+    @Test
+    public void searchFiltersOnTheWillTypeIgnoringCase() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.run(wills.owner, new RequestWillFlow.RequestWillFlowInitiator("WILL-2", "Living Will", "Will details", party(wills.certifier)));
+
+        WillSearchPage page = search(new WillSearchFilter(null, "living will", null, null, null), 1, 10);
+        assertEquals(Collections.singletonList("WILL-2"), willIds(page));
+        assertEquals("Living Will", page.getResults().get(0).getWillType());
+    }
+
+    @Test
+    public void searchFiltersOnTheParties() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        CordaX500Name owner = party(wills.owner).getName();
+        CordaX500Name certifier = party(wills.certifier).getName();
+        assertEquals(Collections.singletonList("WILL-1"), willIds(search(new WillSearchFilter(null, null, null, owner, certifier), 1, 10)));
+        assertTrue(search(new WillSearchFilter(null, null, null, certifier, null), 1, 10).getResults().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSizeIsBounded() {
+        new SearchVaultFlowInitiator(WillSearchFilter.all(), 1, SearchVaultFlow.MAX_PAGE_SIZE + 1);
+    }
+}
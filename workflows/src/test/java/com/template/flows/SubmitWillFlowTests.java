@@ -0,0 +1,89 @@
+package com.template.flows;
+
+import com.template.flows.SubmitWillFlow.WillSubmission;
+import com.template.services.WillOutbox;
+import com.template.states.WillType;
+import net.corda.core.identity.CordaX500Name;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.template.flows.WillTestNetwork.WILL_TYPE;
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SubmitWillFlowTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private String submit(String willId, String willType) throws Exception {
+        return wills.run(wills.owner, new SubmitWillFlow.SubmitWillFlowInitiator(willId, willType, "Will details", party(wills.certifier).getName()));
+    }
+
+    // The outbox poller starts the issuing flow on its own thread, the mock network only runs it while it is pumped
+    private WillSubmission awaitOutcome(String requestId) throws Exception {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+        while (Instant.now().isBefore(deadline)) {
+            WillSubmission submission = wills.run(wills.owner, new SubmitWillFlow.WillSubmissionStatusFlow(requestId));
+            assertNotNull(submission);
+            if (WillOutbox.COMPLETED.equals(submission.getStatus()) || WillOutbox.FAILED.equals(submission.getStatus())) return submission;
+            Thread.sleep(50);
+        }
+        fail("Submission " + requestId + " was not issued in time");
+        return null;
+    }
+
+    @Test
+    public void submittedWillIsIssuedInTheBackground() throws Exception {
+        String requestId = submit("WILL-1", WILL_TYPE);
+
+        WillSubmission submission = awaitOutcome(requestId);
+        assertEquals(WillOutbox.COMPLETED, submission.getStatus());
+        assertEquals("WILL-1", submission.getWillId());
+        assertNull(submission.getError());
+        assertEquals(submission.getTransactionId(), unconsumed(wills.certifier, "WILL-1").getRef().getTxhash().toString());
+    }
+
+    @Test
+    public void submissionRejectedByRequestWillFlowIsFailed() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        String requestId = submit("WILL-1", WILL_TYPE);
+
+        WillSubmission submission = awaitOutcome(requestId);
+        assertEquals(WillOutbox.FAILED, submission.getStatus());
+        assertNull(submission.getTransactionId());
+        assertTrue(submission.getError(), submission.getError().contains("already exists"));
+    }
+
+    @Test
+    public void invalidSubmissionIsRejectedBeforeItIsQueued() throws Exception {
+        assertEquals(WillType.INVALID_TYPE_MESSAGE, wills.failure(wills.owner,
+                new SubmitWillFlow.SubmitWillFlowInitiator("WILL-1", "Napkin Will", "Will details", party(wills.certifier).getName())));
+        assertEquals("The Will Id cannot be empty", wills.failure(wills.owner,
+                new SubmitWillFlow.SubmitWillFlowInitiator("", WILL_TYPE, "Will details", party(wills.certifier).getName())));
+        assertEquals("Identity only be WillOwner", wills.failure(wills.certifier,
+                new SubmitWillFlow.SubmitWillFlowInitiator("WILL-1", WILL_TYPE, "Will details", new CordaX500Name("WillCertifier", "New York", "US"))));
+    }
+
+    @Test
+    public void unknownRequestIdHasNoSubmission() throws Exception {
+        assertNull(wills.run(wills.owner, new SubmitWillFlow.WillSubmissionStatusFlow("no-such-request")));
+    }
+}
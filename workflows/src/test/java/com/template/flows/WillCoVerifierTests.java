@@ -0,0 +1,154 @@
+package com.template.flows;
+
+import com.template.contracts.WillContract;
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.Attachment;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.core.transactions.TransactionBuilder;
+import net.corda.testing.node.StartedMockNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static com.template.contracts.WillContract.WILL_CONTRACT_ID;
+import static com.template.flows.WillTestNetwork.longDetails;
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WillCoVerifierTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private void requestCoVerifiedWill(String willId) throws Exception {
+        wills.requestWill(willId, "Will details", Collections.emptyList(), Collections.singletonList(party(wills.coVerifier)));
+    }
+
+    // A beneficiary validation of the will, built and signed by the certifier alone, as a flow skipping the co-verifiers would
+    private SignedTransaction validationSignedByCertifierOnly(StateAndRef<WillState> input, List<PublicKey> signers) {
+        WillState will = input.getState().getData();
+        return validationSignedByCertifierOnly(input, new WillState(will.getWillId(), will.getWillType(), will.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                will.getOwner(), will.getVerifier(), will.getWillDetailsAttachment(), will.getBeneficiaries(), will.getCoVerifiers()), signers);
+    }
+
+    private SignedTransaction validationSignedByCertifierOnly(StateAndRef<WillState> input, WillState validated, List<PublicKey> signers) {
+        TransactionBuilder txbuilder = new TransactionBuilder(input.getState().getNotary())
+                .addInputState(input)
+                .addOutputState(validated, WILL_CONTRACT_ID)
+                .addCommand(new WillContract.BeneficiaryValidationWill(), signers);
+        return wills.certifier.transaction(() -> wills.certifier.getServices().signInitialTransaction(txbuilder));
+    }
+
+    @Test
+    public void coVerifierSignsATransitionOfItsWill() throws Exception {
+        requestCoVerifiedWill("WILL-1");
+
+        SignedTransaction validation = wills.validateBeneficiary("WILL-1");
+
+        validation.verifyRequiredSignatures();
+        assertTrue(validation.getSigs().stream().anyMatch(signature -> signature.getBy().equals(party(wills.coVerifier).getOwningKey())));
+        for (StartedMockNode node : Arrays.asList(wills.owner, wills.certifier, wills.coVerifier)) {
+            assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(node, "WILL-1").getState().getData().getStatus());
+        }
+    }
+
+    @Test
+    public void coVerifierSignsABatchTransitionOfItsWills() throws Exception {
+        requestCoVerifiedWill("WILL-1");
+        requestCoVerifiedWill("WILL-2");
+
+        WillBatchResult result = wills.run(wills.certifier,
+                new BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator(Arrays.asList("WILL-1", "WILL-2")));
+
+        assertEquals(2, result.getCompletedWillIds().size());
+        assertEquals(1, result.getTransactionIds().size());
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.coVerifier, "WILL-2").getState().getData().getStatus());
+    }
+
+    @Test
+    public void transitionMissingTheCoVerifierSignatureIsNotNotarised() throws Exception {
+        requestCoVerifiedWill("WILL-1");
+        StateAndRef<WillState> input = unconsumed(wills.certifier, "WILL-1");
+
+        //The co-verifier is listed as a signer, but never asked to sign
+        SignedTransaction unsigned = validationSignedByCertifierOnly(input,
+                Arrays.asList(party(wills.certifier).getOwningKey(), party(wills.coVerifier).getOwningKey()));
+        CordaFuture<SignedTransaction> future = wills.certifier.startFlow(new WillFinalityFlow(unsigned, Collections.emptyList()));
+        wills.network.runNetwork();
+        try {
+            future.get();
+            fail("A transition without the co-verifier's signature was finalised");
+        } catch (ExecutionException e) {
+            assertNull(wills.certifier.transaction(() -> wills.certifier.getServices().getValidatedTransactions().getTransaction(unsigned.getId())));
+        }
+        assertEquals(input.getRef(), unconsumed(wills.certifier, "WILL-1").getRef());
+    }
+
+    @Test
+    public void transitionLeavingOutTheCoVerifierIsRejected() throws Exception {
+        requestCoVerifiedWill("WILL-1");
+        StateAndRef<WillState> input = unconsumed(wills.certifier, "WILL-1");
+
+        //The co-verifier is not even listed as a signer, so the contract rejects the transaction
+        SignedTransaction unsigned = validationSignedByCertifierOnly(input, Collections.singletonList(party(wills.certifier).getOwningKey()));
+        String error = wills.failure(wills.certifier, new WillFinalityFlow(unsigned, Collections.emptyList()));
+        assertTrue(error, error.contains("Every co-verifier has to sign"));
+        assertEquals(input.getRef(), unconsumed(wills.certifier, "WILL-1").getRef());
+    }
+
+    @Test
+    public void coVerifierRefusesATransitionThatChangesMoreThanTheStatus() throws Exception {
+        requestCoVerifiedWill("WILL-1");
+        StateAndRef<WillState> input = unconsumed(wills.certifier, "WILL-1");
+        WillState will = input.getState().getData();
+
+        //The certifier asks the co-verifier to sign a validation that also hands the will to the beneficiary node
+        WillState handedOver = new WillState(will.getWillId(), will.getWillType(), will.getWillDetails(), WillStatus.BENEFICIARY_VALIDATED,
+                party(wills.beneficiary), will.getVerifier(), will.getWillDetailsAttachment(), will.getBeneficiaries(), will.getCoVerifiers());
+        SignedTransaction unsigned = validationSignedByCertifierOnly(input, handedOver,
+                Arrays.asList(party(wills.certifier).getOwningKey(), party(wills.coVerifier).getOwningKey()));
+        String error = wills.failure(wills.certifier,
+                new CollectWillSignaturesFlow.CollectWillSignaturesFlowInitiator(unsigned, Collections.singletonList(party(wills.coVerifier))));
+        assertTrue(error, error.contains("The owner cannot change") || error.contains("Only the status of Will Id WILL-1 can change"));
+        assertEquals(input.getRef(), unconsumed(wills.coVerifier, "WILL-1").getRef());
+    }
+
+    @Test
+    public void beneficiaryWithoutTheDetailsAttachmentIsSentIt() throws Exception {
+        String details = longDetails("WILL-1");
+        SecureHash attachmentId = wills.requestWill("WILL-1", details, Collections.singletonList(party(wills.beneficiary)), Collections.emptyList())
+                .getTx().outputsOfType(WillState.class).get(0).getWillDetailsAttachment();
+        assertNotNull(attachmentId);
+
+        //The beneficiary had never seen the attachment, so the transaction was resolved through SendTransactionFlow
+        Attachment attachment = wills.beneficiary.transaction(() -> wills.beneficiary.getServices().getAttachments().openAttachment(attachmentId));
+        assertNotNull(attachment);
+        assertEquals(details, WillDetailsAttachments.read(attachment));
+        StateAndRef<WillState> will = unconsumed(wills.beneficiary, "WILL-1");
+        assertNotNull(will);
+        assertEquals(attachmentId, will.getState().getData().getWillDetailsAttachment());
+    }
+}
@@ -0,0 +1,81 @@
+package com.template.flows;
+
+import com.template.states.WillStatus;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.flows.FlowException;
+import net.corda.core.transactions.SignedTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WillConcurrencyTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    @Test
+    public void concurrentTransitionsOfOneWillOnlyOneWins() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        CordaFuture<SignedTransaction> first = wills.certifier.startFlow(
+                new BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator("WILL-1", party(wills.certifier)));
+        CordaFuture<SignedTransaction> second = wills.certifier.startFlow(
+                new BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator("WILL-1", party(wills.certifier)));
+        wills.network.runNetwork();
+
+        int won = 0;
+        for (CordaFuture<SignedTransaction> future : Arrays.asList(first, second)) {
+            try {
+                future.get();
+                won++;
+            } catch (ExecutionException e) {
+                //The loser finds the input soft locked by the winner
+                assertTrue(e.getCause() instanceof FlowException);
+                assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("is being updated by another flow"));
+            }
+        }
+        assertEquals(1, won);
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.certifier, "WILL-1").getState().getData().getStatus());
+    }
+
+    @Test
+    public void batchTransitionSkipsWillsLockedByAnotherFlow() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+
+        CordaFuture<SignedTransaction> single = wills.certifier.startFlow(
+                new BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator("WILL-1", party(wills.certifier)));
+        CordaFuture<WillBatchResult> batch = wills.certifier.startFlow(
+                new BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator(Arrays.asList("WILL-1", "WILL-2")));
+        wills.network.runNetwork();
+
+        boolean singleWon = true;
+        try {
+            single.get();
+        } catch (ExecutionException e) {
+            singleWon = false;
+        }
+        WillBatchResult result = batch.get();
+        //Exactly one of the flows moved WILL-1, the batch moved WILL-2 either way
+        assertEquals(!singleWon, result.getCompletedWillIds().contains("WILL-1"));
+        assertTrue(result.getCompletedWillIds().contains("WILL-2"));
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.certifier, "WILL-1").getState().getData().getStatus());
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.certifier, "WILL-2").getState().getData().getStatus());
+    }
+}
@@ -0,0 +1,135 @@
+package com.template.flows;
+
+import com.template.states.WillState;
+import net.corda.core.contracts.Attachment;
+import net.corda.core.crypto.SecureHash;
+import net.corda.core.transactions.SignedTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static com.template.flows.WillTestNetwork.longDetails;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class WillDetailsAttachmentTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private static WillState issued(SignedTransaction issuance) {
+        return issuance.getTx().outputsOfType(WillState.class).get(0);
+    }
+
+    @Test
+    public void longDetailsRoundTripThroughTheAttachment() throws Exception {
+        String details = longDetails("WILL-1");
+        WillState will = issued(wills.requestWill("WILL-1", details));
+
+        assertNotNull(will.getWillDetailsAttachment());
+        assertEquals(details.substring(0, WillDetailsAttachments.SUMMARY_LENGTH), will.getWillDetails());
+        //The verifier received the attachment with the transaction and reads the same details back
+        Attachment attachment = wills.certifier.transaction(() ->
+                wills.certifier.getServices().getAttachments().openAttachment(will.getWillDetailsAttachment()));
+        assertNotNull(attachment);
+        assertEquals(details, WillDetailsAttachments.read(attachment));
+        assertEquals(details, wills.run(wills.owner, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-1")));
+        assertEquals(details, wills.run(wills.certifier, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-1")));
+    }
+
+    @Test
+    public void shortDetailsAreCarriedInline() throws Exception {
+        WillState will = issued(wills.requestWill("WILL-1", "Will details"));
+
+        assertNull(will.getWillDetailsAttachment());
+        assertEquals("Will details", will.getWillDetails());
+        assertEquals("Will details", wills.run(wills.certifier, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-1")));
+    }
+
+    @Test
+    public void detailsAttachmentIsCarriedOverATransition() throws Exception {
+        String details = longDetails("WILL-1");
+        SecureHash attachmentId = issued(wills.requestWill("WILL-1", details)).getWillDetailsAttachment();
+        wills.validateBeneficiary("WILL-1");
+
+        assertEquals(attachmentId, unconsumed(wills.owner, "WILL-1").getState().getData().getWillDetailsAttachment());
+        assertEquals(details, wills.run(wills.owner, new FetchWillDetailsFlow.FetchWillDetailsFlowInitiator("WILL-1")));
+    }
+
+    @Test
+    public void willsWithTheSameDetailsShareTheAttachment() throws Exception {
+        String details = longDetails("Shared");
+        SecureHash first = issued(wills.requestWill("WILL-1", details)).getWillDetailsAttachment();
+        SecureHash second = issued(wills.requestWill("WILL-2", details)).getWillDetailsAttachment();
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void attachmentsOfDifferentDetailsHaveDifferentEntries() throws Exception {
+        String first = longDetails("WILL-1");
+        String second = longDetails("WILL-2");
+
+        assertNotEquals(WillDetailsAttachments.entryName(first), WillDetailsAttachments.entryName(second));
+        assertEquals(WillDetailsAttachments.entryName(first), WillDetailsAttachments.entryName(first));
+        try (JarInputStream jar = new JarInputStream(new ByteArrayInputStream(WillDetailsAttachments.compress(first)))) {
+            assertEquals(WillDetailsAttachments.entryName(first), jar.getNextEntry().getName());
+            assertNull(jar.getNextEntry());
+        }
+    }
+
+    @Test
+    public void detailsAreReadFromAnAttachmentWithTheOldEntryName() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("will-details.txt"));
+            zip.write("Will details".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        assertEquals("Will details", WillDetailsAttachments.read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void summaryDoesNotSplitASurrogatePair() {
+        //A character outside the basic plane straddling the cut, e.g. an emoji, is left out of the summary whole
+        StringBuilder details = new StringBuilder();
+        for (int i = 0; i < WillDetailsAttachments.SUMMARY_LENGTH - 1; i++) details.append('a');
+        details.appendCodePoint(0x1F4DC);
+        String longDetails = details + longDetails("");
+
+        String summary = WillDetailsAttachments.inlineDetails(longDetails);
+        assertEquals(WillDetailsAttachments.SUMMARY_LENGTH - 1, summary.length());
+        assertEquals(longDetails.substring(0, WillDetailsAttachments.SUMMARY_LENGTH - 1), summary);
+        //The summary round trips through UTF-8 unchanged, a lone high surrogate would not
+        assertEquals(summary, new String(summary.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compressedDetailsReadBackAndDoNotDependOnTheClock() {
+        String details = longDetails("WILL-1");
+        byte[] attachment = WillDetailsAttachments.compress(details);
+
+        assertArrayEquals(attachment, WillDetailsAttachments.compress(details));
+        assertEquals(details, WillDetailsAttachments.read(new ByteArrayInputStream(attachment)));
+        assertEquals(details.substring(0, WillDetailsAttachments.SUMMARY_LENGTH), WillDetailsAttachments.inlineDetails(details));
+    }
+}
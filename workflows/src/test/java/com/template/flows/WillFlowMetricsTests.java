@@ -0,0 +1,30 @@
+package com.template.flows;
+
+import com.template.services.WillFlowMetrics;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WillFlowMetricsTests {
+    private static boolean metricsRegistered() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        return !server.queryNames(new ObjectName(WillFlowMetrics.JMX_DOMAIN + ":*"), null).isEmpty();
+    }
+
+    @Test
+    public void stoppingTheNodesUnregistersTheFlowMetrics() throws Exception {
+        WillTestNetwork wills = new WillTestNetwork();
+        try {
+            wills.requestWill("WILL-1", "Will details");
+            assertTrue(metricsRegistered());
+        } finally {
+            wills.stop();
+        }
+        assertFalse(metricsRegistered());
+    }
+}
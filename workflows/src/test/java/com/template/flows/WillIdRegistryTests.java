@@ -0,0 +1,73 @@
+package com.template.flows;
+
+import com.template.services.WillIdRegistry;
+import net.corda.core.identity.CordaX500Name;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.template.flows.WillTestNetwork.WILL_TYPE;
+import static com.template.flows.WillTestNetwork.party;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class WillIdRegistryTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private WillIdRegistry registry() {
+        return wills.owner.getServices().cordaService(WillIdRegistry.class);
+    }
+
+    @Test
+    public void requestOfAnIssuedWillIdIsRejected() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        String error = wills.failure(wills.owner, new RequestWillFlow.RequestWillFlowInitiator(
+                "WILL-1", WILL_TYPE, "Other details", party(wills.certifier)));
+        assertTrue(error, error.contains("A Will with Will Id WILL-1 already exists"));
+    }
+
+    @Test
+    public void willIdStaysTakenAcrossATransition() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.validateBeneficiary("WILL-1");
+
+        //The transition consumed the issued state, but re-issued the same will id
+        assertTrue(wills.owner.transaction(() -> registry().exists("WILL-1")));
+        String error = wills.failure(wills.owner, new RequestWillFlow.RequestWillFlowInitiator(
+                "WILL-1", WILL_TYPE, "Other details", party(wills.certifier)));
+        assertTrue(error, error.contains("already exists"));
+    }
+
+    @Test
+    public void failedRequestReleasesTheWillId() throws Exception {
+        String error = wills.failure(wills.owner, new RequestWillFlow.RequestWillFlowInitiator(
+                "WILL-1", WILL_TYPE, "Will details", new CordaX500Name("Nobody", "London", "GB")));
+        assertTrue(error, error.contains("Unknown verifier"));
+
+        assertNotNull(wills.requestWill("WILL-1", "Will details"));
+    }
+
+    @Test
+    public void reservedWillIdCannotBeReservedAgainUntilReleased() {
+        wills.owner.transaction(() -> {
+            assertFalse(registry().exists("WILL-1"));
+            assertTrue(registry().tryReserve("WILL-1"));
+            assertFalse(registry().tryReserve("WILL-1"));
+            registry().release("WILL-1");
+            assertTrue(registry().tryReserve("WILL-1"));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.template.flows;
+
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import net.corda.testing.node.StartedMockNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+
+public class WillLifecycleTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private void generate(String willId) throws Exception {
+        wills.run(wills.certifier, new GenerateWillFlow.GenerateWillFlowInitiator(willId, party(wills.owner)));
+    }
+
+    @Test
+    public void willMovesThroughEveryStatus() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        assertEquals(WillStatus.VERIFICATION_REQUESTED, unconsumed(wills.certifier, "WILL-1").getState().getData().getStatus());
+
+        wills.validateBeneficiary("WILL-1");
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.owner, "WILL-1").getState().getData().getStatus());
+
+        generate("WILL-1");
+        for (StartedMockNode node : Arrays.asList(wills.owner, wills.certifier)) {
+            WillState will = unconsumed(node, "WILL-1").getState().getData();
+            assertEquals(WillStatus.WILL_GENERATED, will.getStatus());
+            assertEquals("Will Generated", will.getWillStatus());
+            assertEquals(party(wills.owner), will.getOwner());
+            assertEquals(party(wills.certifier), will.getVerifier());
+        }
+    }
+
+    @Test
+    public void willIsOnlyGeneratedForItsOwner() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.validateBeneficiary("WILL-1");
+
+        String error = wills.failure(wills.certifier, new GenerateWillFlow.GenerateWillFlowInitiator("WILL-1", party(wills.beneficiary)));
+        assertEquals("Will Id WILL-1 is owned by " + party(wills.owner).getName() + ", not " + party(wills.beneficiary).getName(), error);
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.certifier, "WILL-1").getState().getData().getStatus());
+    }
+
+    @Test
+    public void willCannotBeGeneratedBeforeItsBeneficiariesAreValidated() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        String error = wills.failure(wills.certifier, new GenerateWillFlow.GenerateWillFlowInitiator("WILL-1", party(wills.owner)));
+        assertEquals("Will Id WILL-1 is in status Verification Requested, expected Validated Beneficiary", error);
+    }
+
+    @Test
+    public void beneficiariesCannotBeValidatedTwice() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.validateBeneficiary("WILL-1");
+
+        String error = wills.failure(wills.certifier,
+                new BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator("WILL-1", party(wills.certifier)));
+        assertEquals("Will Id WILL-1 is in status Validated Beneficiary, expected Verification Requested", error);
+    }
+}
@@ -0,0 +1,78 @@
+package com.template.flows;
+
+import com.template.flows.WillStatisticsFlow.WillStatistics;
+import com.template.flows.WillStatisticsFlow.WillStatisticsFlowInitiator;
+import net.corda.core.node.services.Vault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.template.flows.WillTestNetwork.party;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WillStatisticsFlowTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private static Map<String, Long> counts(String firstKey, long first, String secondKey, long second) {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put(firstKey, first);
+        counts.put(secondKey, second);
+        return counts;
+    }
+
+    private void requestWills() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+        wills.run(wills.owner, new RequestWillFlow.RequestWillFlowInitiator("WILL-3", "Living Will", "Will details", party(wills.certifier)));
+        wills.validateBeneficiary("WILL-1");
+    }
+
+    @Test
+    public void unconsumedWillsAreCountedPerColumn() throws Exception {
+        requestWills();
+
+        WillStatistics statistics = wills.run(wills.owner, new WillStatisticsFlowInitiator());
+
+        assertEquals(Vault.StateStatus.UNCONSUMED, statistics.getStateStatus());
+        assertEquals(3, statistics.getTotalWills());
+        assertEquals(counts("Estate Will", 2, "Living Will", 1), new HashMap<>(statistics.getByWillType()));
+        assertEquals(counts("Verification Requested", 2, "Validated Beneficiary", 1), new HashMap<>(statistics.getByWillStatus()));
+        assertEquals(Collections.singletonMap(party(wills.owner).getName().toString(), 3L), statistics.getByOwner());
+        assertEquals(Collections.singletonMap(party(wills.certifier).getName().toString(), 3L), statistics.getByVerifier());
+    }
+
+    @Test
+    public void consumedWillsAreCountedWhenAskedFor() throws Exception {
+        requestWills();
+
+        WillStatistics statistics = wills.run(wills.certifier, new WillStatisticsFlowInitiator(Vault.StateStatus.ALL));
+
+        //The issuance of WILL-1 was consumed by its beneficiary validation
+        assertEquals(4, statistics.getTotalWills());
+        assertEquals(counts("Verification Requested", 3, "Validated Beneficiary", 1), new HashMap<>(statistics.getByWillStatus()));
+    }
+
+    @Test
+    public void emptyVaultCountsNothing() throws Exception {
+        WillStatistics statistics = wills.run(wills.owner, new WillStatisticsFlowInitiator());
+
+        assertEquals(0, statistics.getTotalWills());
+        assertTrue(statistics.getByWillType().isEmpty());
+        assertTrue(statistics.getByOwner().isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+package com.template.flows;
+
+import com.template.contracts.WillContract;
+import com.template.states.WillState;
+import net.corda.core.concurrent.CordaFuture;
+import net.corda.core.contracts.StateAndRef;
+import net.corda.core.flows.FlowException;
+import net.corda.core.flows.FlowLogic;
+import net.corda.core.identity.CordaX500Name;
+import net.corda.core.identity.Party;
+import net.corda.core.transactions.SignedTransaction;
+import net.corda.testing.node.MockNetwork;
+import net.corda.testing.node.MockNetworkParameters;
+import net.corda.testing.node.StartedMockNode;
+import net.corda.testing.node.TestCordapp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Mock network with a node for every will party, shared by the flow tests. The flows check the organisation of the
+ * node they run on, so the nodes are named after the organisations they expect.
+ */
+class WillTestNetwork {
+    static final String WILL_TYPE = "Estate Will";
+
+    final MockNetwork network;
+    final StartedMockNode owner;
+    final StartedMockNode certifier;
+    final StartedMockNode coVerifier;
+    final StartedMockNode beneficiary;
+
+    WillTestNetwork() {
+        this(new MockNetworkParameters());
+    }
+
+    // The will CorDapps are installed on every node unless the parameters already list them, e.g. with a config
+    WillTestNetwork(MockNetworkParameters parameters) {
+        if (parameters.getCordappsForAllNodes().isEmpty()) parameters = parameters.withCordappsForAllNodes(cordapps());
+        network = new MockNetwork(parameters);
+        owner = network.createPartyNode(new CordaX500Name("WillOwner", "Charlotte", "US"));
+        certifier = network.createPartyNode(new CordaX500Name("WillCertifier", "New York", "US"));
+        coVerifier = network.createPartyNode(new CordaX500Name("WillCoCertifier", "Boston", "US"));
+        beneficiary = network.createPartyNode(new CordaX500Name("WillBeneficiary", "Chicago", "US"));
+        network.runNetwork();
+    }
+
+    static List<TestCordapp> cordapps() {
+        return Arrays.asList(TestCordapp.findCordapp("com.template.contracts"), TestCordapp.findCordapp("com.template.flows"));
+    }
+
+    static Party party(StartedMockNode node) {
+        return node.getInfo().getLegalIdentities().get(0);
+    }
+
+    void stop() {
+        network.stopNodes();
+    }
+
+    // Runs the flow on the node until the network is idle and returns its result
+    <T> T run(StartedMockNode node, FlowLogic<T> flow) throws Exception {
+        CordaFuture<T> future = node.startFlow(flow);
+        network.runNetwork();
+        return future.get();
+    }
+
+    // Runs a flow that is expected to fail with a FlowException and returns its message
+    String failure(StartedMockNode node, FlowLogic<?> flow) throws Exception {
+        try {
+            run(node, flow);
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof FlowException);
+            return e.getCause().getMessage();
+        }
+        fail("The flow did not fail");
+        return null;
+    }
+
+    SignedTransaction requestWill(String willId, String willDetails) throws Exception {
+        return requestWill(willId, willDetails, Collections.emptyList(), Collections.emptyList());
+    }
+
+    SignedTransaction requestWill(String willId, String willDetails, List<Party> beneficiaries, List<Party> coVerifiers) throws Exception {
+        return run(owner, new RequestWillFlow.RequestWillFlowInitiator(willId, WILL_TYPE, willDetails, party(certifier), beneficiaries, coVerifiers));
+    }
+
+    SignedTransaction validateBeneficiary(String willId) throws Exception {
+        return run(certifier, new BeneficiaryValidationWillFlow.BeneficiaryValidationWillFlowInitiator(willId, party(certifier)));
+    }
+
+    static StateAndRef<WillState> unconsumed(StartedMockNode node, String willId) {
+        return node.transaction(() -> WillQueries.findUnconsumed(node.getServices(), willId));
+    }
+
+    // Will details long enough to be kept in an attachment instead of inline
+    static String longDetails(String prefix) {
+        StringBuilder details = new StringBuilder(prefix);
+        while (details.length() <= 4 * WillContract.MAX_INLINE_DETAILS_LENGTH) {
+            details.append(" I leave my estate to my beneficiaries.");
+        }
+        return details.toString();
+    }
+}
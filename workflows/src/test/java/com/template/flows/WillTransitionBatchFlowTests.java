@@ -0,0 +1,119 @@
+package com.template.flows;
+
+import com.template.states.WillState;
+import com.template.states.WillStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.template.flows.WillTestNetwork.party;
+import static com.template.flows.WillTestNetwork.unconsumed;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WillTransitionBatchFlowTests {
+    private WillTestNetwork wills;
+
+    @Before
+    public void setup() {
+        wills = new WillTestNetwork();
+    }
+
+    @After
+    public void tearDown() {
+        wills.stop();
+    }
+
+    private WillBatchResult validateBeneficiaries(List<String> willIds, int batchSize) throws Exception {
+        return wills.run(wills.certifier, new BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator(willIds, batchSize));
+    }
+
+    private WillBatchResult generate(List<String> willIds) throws Exception {
+        return wills.run(wills.certifier, new GenerateWillBatchFlow.GenerateWillBatchFlowInitiator(willIds));
+    }
+
+    @Test
+    public void willsAreMovedOnInBatchesOfTheBatchSize() throws Exception {
+        for (String willId : Arrays.asList("WILL-1", "WILL-2", "WILL-3")) wills.requestWill(willId, "Will details");
+
+        WillBatchResult result = validateBeneficiaries(Arrays.asList("WILL-1", "WILL-2", "WILL-3"), 2);
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2", "WILL-3")), new HashSet<>(result.getCompletedWillIds()));
+        assertTrue(result.getFailedWillIds().isEmpty());
+        assertEquals(2, result.getTransactionIds().size());
+        for (String willId : Arrays.asList("WILL-1", "WILL-2", "WILL-3")) {
+            assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.owner, willId).getState().getData().getStatus());
+        }
+    }
+
+    @Test
+    public void validatedWillsAreGeneratedInABatch() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+        validateBeneficiaries(Arrays.asList("WILL-1", "WILL-2"), 10);
+
+        WillBatchResult result = generate(Arrays.asList("WILL-1", "WILL-2"));
+
+        assertEquals(new HashSet<>(Arrays.asList("WILL-1", "WILL-2")), new HashSet<>(result.getCompletedWillIds()));
+        assertEquals(1, result.getTransactionIds().size());
+        for (String willId : Arrays.asList("WILL-1", "WILL-2")) {
+            WillState will = unconsumed(wills.owner, willId).getState().getData();
+            assertEquals(WillStatus.WILL_GENERATED, will.getStatus());
+            assertEquals(party(wills.owner), will.getOwner());
+            assertEquals(party(wills.certifier), will.getVerifier());
+        }
+    }
+
+    @Test
+    public void unknownWillIdIsReportedAndTheRestMovedOn() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        WillBatchResult result = validateBeneficiaries(Arrays.asList("WILL-1", "WILL-2"), 10);
+
+        assertEquals(Collections.singletonList("WILL-1"), result.getCompletedWillIds());
+        assertEquals(Collections.singletonMap("WILL-2", "No unconsumed Will State found for this Will Id"), result.getFailedWillIds());
+    }
+
+    @Test
+    public void willInTheWrongStatusIsReportedAndTheRestMovedOn() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details");
+        validateBeneficiaries(Collections.singletonList("WILL-1"), 10);
+
+        WillBatchResult result = generate(Arrays.asList("WILL-1", "WILL-2"));
+
+        assertEquals(Collections.singletonList("WILL-1"), result.getCompletedWillIds());
+        assertEquals(Collections.singletonMap("WILL-2", "The Will is in status Verification Requested, expected Validated Beneficiary"),
+                result.getFailedWillIds());
+        assertEquals(WillStatus.VERIFICATION_REQUESTED, unconsumed(wills.owner, "WILL-2").getState().getData().getStatus());
+    }
+
+    @Test
+    public void willsWithOtherPartiesGoInTheirOwnTransaction() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+        wills.requestWill("WILL-2", "Will details", Collections.singletonList(party(wills.beneficiary)), Collections.emptyList());
+
+        WillBatchResult result = validateBeneficiaries(Arrays.asList("WILL-1", "WILL-2"), 10);
+
+        assertEquals(2, result.getCompletedWillIds().size());
+        assertEquals(2, result.getTransactionIds().size());
+        //Only the transaction of the beneficiary's own will is sent to it
+        assertEquals(WillStatus.BENEFICIARY_VALIDATED, unconsumed(wills.beneficiary, "WILL-2").getState().getData().getStatus());
+        assertNull(unconsumed(wills.beneficiary, "WILL-1"));
+    }
+
+    @Test
+    public void batchTransitionCanOnlyBeRunByTheCertifier() throws Exception {
+        wills.requestWill("WILL-1", "Will details");
+
+        String error = wills.failure(wills.owner,
+                new BeneficiaryValidationWillBatchFlow.BeneficiaryValidationWillBatchFlowInitiator(Collections.singletonList("WILL-1")));
+        assertEquals("Identity only be Will Certifier", error);
+    }
+}